@@ -0,0 +1,64 @@
+package Benchmark;
+
+import Bussiness.FlowerManagement;
+import Model.Flower;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the flower lookups of FlowerManagement. The catalog holds at most
+ * Codes.FLOWER_CAPACITY flowers, F000 to F999.
+ *
+ * @author Nguyen Truong Tho
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class FlowerBench {
+
+    @Param({"100", "1000"})
+    public int size;
+
+    private FlowerManagement store;
+    private String[] ids;
+    private int next;
+
+    @Setup
+    public void setup() {
+        store = SyntheticStore.flowerStore(size);
+        ids = new String[1024];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = SyntheticStore.flowerId((int) ((long) i * size / ids.length)).toLowerCase();
+        }
+    }
+
+    @Benchmark
+    public Flower getFlowerById() {
+        next = (next + 1) & (ids.length - 1);
+        return store.getFlowerById(ids[next]);
+    }
+
+    @Benchmark
+    public List<Flower> findByNameCommon() {
+        return store.findByName("red rose 1");
+    }
+
+    @Benchmark
+    public List<Flower> findByNameRare() {
+        return store.findByName("tulip " + (size - 1));
+    }
+}
@@ -0,0 +1,107 @@
+package Benchmark;
+
+import Bussiness.OrderManagement;
+import Model.Flower;
+import Model.Order;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the order queries of OrderManagement.
+ *
+ * @author Nguyen Truong Tho
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class OrderBench {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int size;
+
+    private OrderManagement store;
+    private List<Order> orders;
+    private Flower ordered;
+    private Flower unordered;
+    private int monthStart;
+    private int monthEnd;
+
+    @Setup
+    public void setup() {
+        store = SyntheticStore.orderStore(size, 1000);
+        orders = new ArrayList<>(store);
+        ordered = new Flower(SyntheticStore.flowerId(500), "", null, 0, "");
+        unordered = new Flower(SyntheticStore.flowerId(1000), "", null, 0, "");
+        monthStart = SyntheticStore.FIRST_DAY + 1800;
+        monthEnd = monthStart + 30;
+    }
+
+    @Benchmark
+    public boolean isInOrderHit() {
+        return store.isInOrder(ordered);
+    }
+
+    @Benchmark
+    public boolean isInOrderMiss() {
+        return store.isInOrder(unordered);
+    }
+
+    @Benchmark
+    public long showOrderOneMonth() {
+        return store.streamByDate(monthStart, monthEnd).count();
+    }
+
+    @Benchmark
+    public List<Order> sortByOrderId() {
+        return sort(1);
+    }
+
+    @Benchmark
+    public List<Order> sortByOrderDate() {
+        return sort(2);
+    }
+
+    @Benchmark
+    public List<Order> sortByCustomerName() {
+        return sort(3);
+    }
+
+    @Benchmark
+    public List<Order> sortByOrderTotal() {
+        return sort(4);
+    }
+
+    @Benchmark
+    public List<Order> firstPageByOrderTotal() {
+        return store.sort(4, true, 0, 20);
+    }
+
+    @Benchmark
+    public List<Order> firstPageByCustomerName() {
+        return store.sort(3, false, 0, 20);
+    }
+
+    private List<Order> sort(int field) {
+        List<Order> list = new ArrayList<>(orders);
+        Comparator<Order> c = OrderManagement.comparator(field);
+        Collections.sort(list, c);
+        return list;
+    }
+}
@@ -0,0 +1,68 @@
+package Benchmark;
+
+import Bussiness.OrderManagement;
+import Model.Order;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the sequential and parallel paths of sorting and totalling orders
+ * over a range of sizes, to find the size from which the parallel path wins.
+ * The crossover depends on the number of cores; set it with
+ * -Dstore.parallelThreshold.
+ *
+ * @author Nguyen Truong Tho
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ParallelBench {
+
+    @Param({"1000", "4000", "16000", "64000", "256000", "1000000", "4000000"})
+    public int size;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private List<Order> orders;
+    private Order[] array;
+    private final Comparator<Order> byTotal = OrderManagement.comparator(4);
+
+    @Setup
+    public void setup() {
+        orders = SyntheticStore.orders(size, 1000);
+        array = new Order[size];
+    }
+
+    @Benchmark
+    public Order[] sortByOrderTotal() {
+        orders.toArray(array);
+        OrderManagement.sort(array, byTotal, parallel);
+        return array;
+    }
+
+    @Benchmark
+    public double totalCost() {
+        return OrderManagement.totalCost(orders, parallel);
+    }
+
+    @Benchmark
+    public long totalQuantity() {
+        return OrderManagement.totalQuantity(orders, parallel);
+    }
+}
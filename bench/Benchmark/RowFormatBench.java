@@ -0,0 +1,83 @@
+package Benchmark;
+
+import Model.Flower;
+import Model.Order;
+import Tools.Days;
+import java.text.SimpleDateFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the row formatting of String.format with a new SimpleDateFormat
+ * per row, as Order.toString and Flower.toString used to do, with the shared
+ * RowFormatter. Run with -prof gc to compare the allocation rates, for
+ * example: ant bench -Dbench.args="RowFormatBench -prof gc"
+ *
+ * @author Nguyen Truong Tho
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RowFormatBench {
+
+    private static final int ROWS = 1024;
+    private List<Order> orders;
+    private List<Flower> flowers;
+    private final StringBuilder sb = new StringBuilder(128);
+    private int next;
+
+    @Setup
+    public void setup() {
+        orders = SyntheticStore.orders(ROWS, 1000);
+        flowers = SyntheticStore.flowers(ROWS);
+    }
+
+    @Benchmark
+    public String orderStringFormat() {
+        Order o = orders.get(next++ & (ROWS - 1));
+        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyy");
+        return String.format("| %-9s | %12s | %-20s | %12d | %11.3f |", o.getOrderId(), sdf.format(Days.toDate(o.getOrderDay())), o.getCustomerName(), o.getQuantity(), o.getFlowerCost());
+    }
+
+    @Benchmark
+    public String orderToString() {
+        return orders.get(next++ & (ROWS - 1)).toString();
+    }
+
+    @Benchmark
+    public int orderAppendTo() {
+        sb.setLength(0);
+        return orders.get(next++ & (ROWS - 1)).appendTo(sb).length();
+    }
+
+    @Benchmark
+    public String flowerStringFormat() {
+        Flower f = flowers.get(next++ & (ROWS - 1));
+        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyy");
+        return String.format("| %-9s | %-20s | %12s | %12.3f | %8s |", f.getFlowerId(), f.getName(), sdf.format(Days.toDate(f.getImportDay())), f.getUnitPrice(), f.getCategory());
+    }
+
+    @Benchmark
+    public String flowerToString() {
+        return flowers.get(next++ & (ROWS - 1)).toString();
+    }
+
+    @Benchmark
+    public int flowerAppendTo() {
+        sb.setLength(0);
+        return flowers.get(next++ & (ROWS - 1)).appendTo(sb).length();
+    }
+}
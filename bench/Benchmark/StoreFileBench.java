@@ -0,0 +1,78 @@
+package Benchmark;
+
+import Model.Order;
+import Tools.FileIO;
+import Tools.StoreFile;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the save and load time of Java serialization (FileIO) with the
+ * binary storage format (StoreFile).
+ *
+ * @author Nguyen Truong Tho
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class StoreFileBench {
+
+    @Param({"10000", "100000", "1000000"})
+    public int size;
+
+    private List<Order> orders;
+    private File legacy;
+    private File binary;
+
+    @Setup
+    public void setup() throws IOException {
+        orders = SyntheticStore.orders(size, 1000);
+        legacy = File.createTempFile("orders", ".ser");
+        binary = File.createTempFile("orders", ".dat");
+        FileIO.saveData(orders, legacy.getPath());
+        StoreFile.saveOrders(orders, binary.getPath());
+    }
+
+    @TearDown
+    public void tearDown() {
+        legacy.delete();
+        binary.delete();
+    }
+
+    @Benchmark
+    public boolean fileIOSave() {
+        return FileIO.saveData(orders, legacy.getPath());
+    }
+
+    @Benchmark
+    public List<?> fileIOLoad() {
+        return FileIO.loadData(legacy.getPath());
+    }
+
+    @Benchmark
+    public boolean storeFileSave() {
+        return StoreFile.saveOrders(orders, binary.getPath());
+    }
+
+    @Benchmark
+    public List<Order> storeFileLoad() {
+        return StoreFile.loadOrders(binary.getPath());
+    }
+}
@@ -0,0 +1,101 @@
+package Benchmark;
+
+import Bussiness.FlowerManagement;
+import Bussiness.OrderManagement;
+import Model.Flower;
+import Model.Order;
+import Model.OrderDetail;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class builds deterministic synthetic flowers and orders for the
+ * benchmarks.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class SyntheticStore {
+
+    public static final int FIRST_DAY = 16071;
+    public static final int DAYS = 3650;
+    private static final String[] COLORS = {"Red", "White", "Pink", "Yellow", "Blue", "Purple"};
+    private static final String[] KINDS = {"Rose", "Lily", "Tulip", "Orchid", "Daisy", "Peony", "Iris"};
+
+    /**
+     * Returns the ID of the flower with the specified number.
+     *
+     * @param i The flower number.
+     * @return The flower ID.
+     */
+    public static String flowerId(int i) {
+        return String.format("F%03d", i);
+    }
+
+    /**
+     * Builds a list of flowers.
+     *
+     * @param n The number of flowers.
+     * @return The list of flowers.
+     */
+    public static List<Flower> flowers(int n) {
+        Random r = new Random(42);
+        List<Flower> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String kind = KINDS[r.nextInt(KINDS.length)];
+            list.add(new Flower(flowerId(i), COLORS[r.nextInt(COLORS.length)] + " " + kind + " " + i,
+                    FIRST_DAY + r.nextInt(DAYS), 1 + r.nextInt(10000) / 100.0, kind.toLowerCase()));
+        }
+        return list;
+    }
+
+    /**
+     * Builds a list of orders with one to four details each, spread over ten
+     * years.
+     *
+     * @param n The number of orders.
+     * @param flowers The number of flowers the details refer to.
+     * @return The list of orders.
+     */
+    public static List<Order> orders(int n, int flowers) {
+        Random r = new Random(7);
+        List<Order> list = new ArrayList<>(n);
+        for (int i = 1; i <= n; i++) {
+            int details = 1 + r.nextInt(4);
+            List<OrderDetail> orderDetail = new ArrayList<>(details);
+            for (int j = 1; j <= details; j++) {
+                int quantity = 1 + r.nextInt(50);
+                orderDetail.add(new OrderDetail(String.format("%04d", j), flowerId(r.nextInt(flowers)),
+                        quantity, quantity * (1 + r.nextInt(10000) / 100.0)));
+            }
+            list.add(new Order(String.format("%04d", i), FIRST_DAY + r.nextInt(DAYS),
+                    "Customer " + r.nextInt(Math.max(1, n / 10)), orderDetail));
+        }
+        return list;
+    }
+
+    /**
+     * Builds a flower store.
+     *
+     * @param n The number of flowers.
+     * @return The flower store.
+     */
+    public static FlowerManagement flowerStore(int n) {
+        FlowerManagement store = new FlowerManagement();
+        store.addAll(flowers(n));
+        return store;
+    }
+
+    /**
+     * Builds an order store.
+     *
+     * @param n The number of orders.
+     * @param flowers The number of flowers the details refer to.
+     * @return The order store.
+     */
+    public static OrderManagement orderStore(int n, int flowers) {
+        OrderManagement store = new OrderManagement();
+        store.addAll(orders(n, flowers));
+        return store;
+    }
+}
@@ -0,0 +1,76 @@
+package Benchmark;
+
+import Tools.Validator;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the date and name checks as InputFormatter used to do them, with
+ * a pattern compiled per call, a regex split and a second parse, with the
+ * shared Validator. For example: ant bench -Dbench.args="ValidatorBench"
+ *
+ * @author Nguyen Truong Tho
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorBench {
+
+    private static final String DATE_FORMAT = "^(0[1-9]|[12][0-9]|3[01])[- /.](0[1-9]|1[012])[- /.](19|20)[0-9]{2,2}$";
+    private static final String[] DATES = {"12/05/2023", "29/02/2024", "31/04/2023", "1/1/2020"};
+    private static final String[] NAMES = {"Red Rose", "Lily 2", "x", "Sun-flower"};
+    private int next;
+
+    @Benchmark
+    public LocalDate dateRegex() {
+        String date = DATES[next++ & 3];
+        if (!Pattern.compile(DATE_FORMAT).matcher(date).find() || !isValidDate(date)) {
+            return null;
+        }
+        return LocalDate.of(Integer.parseInt(date.substring(6, 10)),
+                Integer.parseInt(date.substring(3, 5)), Integer.parseInt(date.substring(0, 2)));
+    }
+
+    @Benchmark
+    public LocalDate dateValidator() {
+        return Validator.parseDate(DATES[next++ & 3]);
+    }
+
+    @Benchmark
+    public boolean nameMatches() {
+        return NAMES[next++ & 3].matches("^[a-zA-Z0-9 ]{3,50}$");
+    }
+
+    @Benchmark
+    public boolean nameValidator() {
+        return Validator.isFlowerName(NAMES[next++ & 3]);
+    }
+
+    private static boolean isValidDate(String date) {
+        String[] split = date.split("[-/. ]");
+        int day = Integer.parseInt(split[0]);
+        int month = Integer.parseInt(split[1]);
+        int year = Integer.parseInt(split[2]);
+        int maxDay = 30;
+        if (month == 1 || month == 3 || month == 5 || month == 7 || month == 8 || month == 10 || month == 12) {
+            maxDay = 31;
+        }
+        if (month == 2) {
+            maxDay = year % 400 == 0 || (year % 4 == 0 && year % 100 != 0) ? 29 : 28;
+        }
+        return day <= maxDay;
+    }
+}
@@ -0,0 +1,299 @@
+package Bussiness;
+
+import Model.Flower;
+import Model.OrderDetail;
+import Tools.Days;
+import Tools.Validator;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class imports flowers and orders from CSV files without prompting the
+ * user. Files are read line by line in a single pass and every row goes
+ * through the same rules as the console input; rejected rows are written to a
+ * file next to the input, named after it with ".rejected" appended.
+ * <p>
+ * Both files start with a header line, which is skipped. A flower row is
+ * {@code flowerId,name,importDate,unitPrice,category}. An order row is
+ * {@code orderRef,orderDate,customerName,flowerId,quantity}; consecutive rows
+ * with the same order reference make up one order, which gets the next order
+ * ID of the store.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class BulkImport {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private final FlowerManagement flowerSet;
+    private final OrderManagement orderSet;
+    private final String[] fields = new String[5];
+    private BufferedWriter rejects;
+    private String rejectFile;
+    private int imported;
+    private int rejected;
+
+    /**
+     * Constructor for the BulkImport class.
+     *
+     * @param flowerSet The flowers to import into and to check orders against.
+     * @param orderSet The orders to import into.
+     */
+    public BulkImport(FlowerManagement flowerSet, OrderManagement orderSet) {
+        this.flowerSet = flowerSet;
+        this.orderSet = orderSet;
+    }
+
+    /**
+     * Returns the number of flowers or orders imported by the last import.
+     *
+     * @return The number of imported records.
+     */
+    public int getImported() {
+        return imported;
+    }
+
+    /**
+     * Returns the number of rows rejected by the last import.
+     *
+     * @return The number of rejected rows.
+     */
+    public int getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Imports flowers from a CSV file. Rows whose flower ID already exists are
+     * rejected.
+     *
+     * @param fileName The name of the CSV file.
+     * @return True if the file has been read to the end, false otherwise.
+     */
+    public boolean importFlowers(String fileName) {
+        start(fileName);
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(Files.newInputStream(Paths.get(fileName)), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            String line = in.readLine();
+            int no = 1;
+            while ((line = in.readLine()) != null) {
+                no++;
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String error = null;
+                int importDay = Days.NONE;
+                if (split(line) != 5) {
+                    error = "a flower row must have 5 fields";
+                } else if (!Validator.isFlowerId(fields[0])) {
+                    error = Validator.FLOWER_ID_FORMAT;
+                } else if (!Validator.isFlowerName(fields[1])) {
+                    error = Validator.FLOWER_NAME_FORMAT;
+                } else if ((importDay = Validator.parseDay(fields[2])) == Days.NONE) {
+                    error = Validator.DATE_FORMAT;
+                } else {
+                    double unitPrice = parseDouble(fields[3]);
+                    if (!(unitPrice >= 0)) {
+                        error = "The unit price field must be a positive number";
+                    } else if (!flowerSet.addFlower(new Flower(fields[0].toUpperCase(), fields[1],
+                            importDay, unitPrice, fields[4]))) {
+                        error = "The flower already exist!";
+                    } else {
+                        imported++;
+                    }
+                }
+                if (error != null) {
+                    reject(no, error, line);
+                }
+            }
+            return true;
+        } catch (IOException ex) {
+            System.out.println(ex);
+            return false;
+        } finally {
+            finish();
+        }
+    }
+
+    /**
+     * Imports orders from a CSV file. A row is rejected if its flower does not
+     * exist, its quantity is not a positive number, or its order date or
+     * customer name is invalid or differs from the first row of its order. An
+     * order is added if at least one of its rows is accepted.
+     *
+     * @param fileName The name of the CSV file.
+     * @return True if the file has been read to the end, false otherwise.
+     */
+    public boolean importOrders(String fileName) {
+        start(fileName);
+        String ref = null;
+        String dateField = null;
+        String customer = null;
+        LocalDate orderDate = null;
+        String orderError = null;
+        List<OrderDetail> orderDetail = new ArrayList<>();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(Files.newInputStream(Paths.get(fileName)), StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            String line = in.readLine();
+            int no = 1;
+            while ((line = in.readLine()) != null) {
+                no++;
+                if (line.isEmpty()) {
+                    continue;
+                }
+                if (split(line) != 5) {
+                    reject(no, "an order row must have 5 fields", line);
+                    continue;
+                }
+                if (!fields[0].equals(ref)) {
+                    addOrder(orderDate, customer, orderDetail);
+                    ref = fields[0];
+                    dateField = fields[1];
+                    customer = fields[2];
+                    orderDetail = new ArrayList<>();
+                    orderDate = Validator.parseDate(dateField);
+                    if (orderDate == null) {
+                        orderError = Validator.DATE_FORMAT;
+                    } else if (!Validator.isCustomerName(customer)) {
+                        orderError = Validator.CUSTOMER_NAME_FORMAT;
+                        orderDate = null;
+                    } else {
+                        orderError = null;
+                    }
+                }
+                String error = orderError;
+                if (error == null && (!fields[1].equals(dateField) || !fields[2].equals(customer))) {
+                    error = "the order date and customer must match the first row of the order";
+                } else if (error == null) {
+                    Flower f = flowerSet.getFlowerById(fields[3]);
+                    int quantity = parseInt(fields[4]);
+                    if (f == null) {
+                        error = "The flower does not exist!";
+                    } else if (quantity < 1) {
+                        error = "Quantity must be greater than 0!";
+                    } else {
+                        orderDetail.add(new OrderDetail(OrderManagement.formatId(orderDetail.size() + 1),
+                                f.getFlowerId(), quantity, f.getUnitPrice() * quantity));
+                    }
+                }
+                if (error != null) {
+                    reject(no, error, line);
+                }
+            }
+            addOrder(orderDate, customer, orderDetail);
+            return true;
+        } catch (IOException ex) {
+            System.out.println(ex);
+            return false;
+        } finally {
+            finish();
+        }
+    }
+
+    private void addOrder(LocalDate orderDate, String customer, List<OrderDetail> orderDetail) {
+        if (!orderDetail.isEmpty()) {
+            orderSet.addOrder(orderDate, customer, orderDetail);
+            imported++;
+        }
+    }
+
+    private void start(String fileName) {
+        imported = 0;
+        rejected = 0;
+        rejects = null;
+        rejectFile = fileName + ".rejected";
+    }
+
+    private void finish() {
+        if (rejects != null) {
+            try {
+                rejects.close();
+            } catch (IOException ex) {
+                System.out.println(ex);
+            }
+            System.out.println(rejected + " row(s) have been rejected, see " + rejectFile);
+        }
+    }
+
+    /**
+     * Writes a rejected row with its line number and reason.
+     */
+    private void reject(int no, String error, String line) throws IOException {
+        if (rejects == null) {
+            rejects = Files.newBufferedWriter(Paths.get(rejectFile), StandardCharsets.UTF_8);
+        }
+        rejects.write("line " + no + ": " + error + ": " + line);
+        rejects.newLine();
+        rejected++;
+    }
+
+    /**
+     * Splits a CSV line into the fields array. Fields may be enclosed in
+     * double quotes, with doubled quotes standing for a quote.
+     *
+     * @return The number of fields in the line.
+     */
+    private int split(String line) {
+        int count = 0;
+        int i = 0;
+        int n = line.length();
+        while (i <= n) {
+            String field;
+            if (i < n && line.charAt(i) == '"') {
+                StringBuilder sb = new StringBuilder();
+                i++;
+                while (i < n) {
+                    char c = line.charAt(i++);
+                    if (c == '"') {
+                        if (i < n && line.charAt(i) == '"') {
+                            sb.append('"');
+                            i++;
+                        } else {
+                            break;
+                        }
+                    } else {
+                        sb.append(c);
+                    }
+                }
+                field = sb.toString();
+                while (i < n && line.charAt(i) != ',') {
+                    i++;
+                }
+            } else {
+                int end = line.indexOf(',', i);
+                if (end < 0) {
+                    end = n;
+                }
+                field = line.substring(i, end).trim();
+                i = end;
+            }
+            if (count < fields.length) {
+                fields[count] = field;
+            }
+            count++;
+            i++;
+        }
+        return count;
+    }
+
+    private static double parseDouble(String s) {
+        try {
+            double d = Double.parseDouble(s);
+            return Double.isInfinite(d) ? Double.NaN : d;
+        } catch (NumberFormatException ex) {
+            return Double.NaN;
+        }
+    }
+
+    private static int parseInt(String s) {
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+}
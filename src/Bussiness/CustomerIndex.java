@@ -0,0 +1,235 @@
+package Bussiness;
+
+import Model.Order;
+import Tools.OrderArchive;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class indexes orders by customer, so the orders and the lifetime
+ * quantity and spend of one customer are read without scanning every order.
+ * Customer names are normalized before they are looked up: surrounding spaces
+ * are trimmed, runs of spaces become one and letters are lower-cased, so
+ * "Tho  Nguyen" and "tho nguyen" are the same customer.
+ * <p>
+ * Orders of the collection are indexed as they are added and removed, with
+ * running totals. The orders of an order archive are indexed by position the
+ * first time a customer is looked up after the archive is opened; the archive
+ * never changes once opened, so the positions and their totals are kept until
+ * another archive is opened.
+ *
+ * @author Nguyen Truong Tho
+ */
+class CustomerIndex {
+
+    private final ConcurrentHashMap<String, Customer> customers = new ConcurrentHashMap<>();
+    private OrderArchive archive;
+    private Map<String, Archived> archived = Collections.emptyMap();
+
+    /**
+     * The orders of a customer in the collection, with their totals.
+     */
+    private static final class Customer {
+
+        private final Queue<Order> orders = new ConcurrentLinkedQueue<>();
+        private final LongAdder count = new LongAdder();
+        private final LongAdder quantity = new LongAdder();
+        private final DoubleAdder spend = new DoubleAdder();
+    }
+
+    /**
+     * The positions of a customer's orders in an order archive, with their
+     * totals.
+     */
+    private static final class Archived {
+
+        private int[] positions = new int[4];
+        private int count;
+        private long quantity;
+        private double spend;
+    }
+
+    /**
+     * Normalizes a customer name.
+     *
+     * @param name The customer name.
+     * @return The normalized name, or an empty string if the name is null.
+     */
+    static String normalize(String name) {
+        if (name == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(name.length());
+        boolean space = false;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+            } else {
+                if (space) {
+                    sb.append(' ');
+                    space = false;
+                }
+                sb.append(c);
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Indexes an order of the collection.
+     *
+     * @param o The order.
+     */
+    void add(Order o) {
+        customers.compute(normalize(o.getCustomerName()), (k, c) -> {
+            if (c == null) {
+                c = new Customer();
+            }
+            c.orders.add(o);
+            c.count.increment();
+            c.quantity.add(o.getQuantity());
+            c.spend.add(o.getFlowerCost());
+            return c;
+        });
+    }
+
+    /**
+     * Removes an order of the collection from the index.
+     *
+     * @param o The order.
+     */
+    void remove(Order o) {
+        customers.computeIfPresent(normalize(o.getCustomerName()), (k, c) -> {
+            if (c.orders.remove(o)) {
+                c.count.decrement();
+                c.quantity.add(-o.getQuantity());
+                c.spend.add(-o.getFlowerCost());
+            }
+            return c.orders.isEmpty() ? null : c;
+        });
+    }
+
+    /**
+     * Removes every order from the index, including the archived orders.
+     */
+    void clear() {
+        customers.clear();
+        synchronized (this) {
+            archive = null;
+            archived = Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Retrieves the orders of a customer: the orders of the archive first, in
+     * archive order, then the orders of the collection in the order they were
+     * added.
+     *
+     * @param name The customer name.
+     * @param history The order archive, or null if there is none.
+     * @return The list of orders, empty if the customer has none.
+     */
+    List<Order> getOrders(String name, OrderArchive history) {
+        String key = normalize(name);
+        Archived a = archived(history).get(key);
+        Customer c = customers.get(key);
+        List<Order> list = new ArrayList<>((a == null ? 0 : a.count) + (c == null ? 0 : c.count.intValue()));
+        if (a != null) {
+            for (int i = 0; i < a.count; i++) {
+                list.add(history.get(a.positions[i]));
+            }
+        }
+        if (c != null) {
+            list.addAll(c.orders);
+        }
+        return list;
+    }
+
+    /**
+     * Returns the number of orders of a customer.
+     *
+     * @param name The customer name.
+     * @param history The order archive, or null if there is none.
+     * @return The number of orders.
+     */
+    int getOrderCount(String name, OrderArchive history) {
+        String key = normalize(name);
+        Archived a = archived(history).get(key);
+        Customer c = customers.get(key);
+        return (a == null ? 0 : a.count) + (c == null ? 0 : c.count.intValue());
+    }
+
+    /**
+     * Returns the total quantity of flowers over the orders of a customer.
+     *
+     * @param name The customer name.
+     * @param history The order archive, or null if there is none.
+     * @return The total quantity of flowers.
+     */
+    long getQuantity(String name, OrderArchive history) {
+        String key = normalize(name);
+        Archived a = archived(history).get(key);
+        Customer c = customers.get(key);
+        return (a == null ? 0 : a.quantity) + (c == null ? 0 : c.quantity.sum());
+    }
+
+    /**
+     * Returns the total cost over the orders of a customer.
+     *
+     * @param name The customer name.
+     * @param history The order archive, or null if there is none.
+     * @return The total cost.
+     */
+    double getSpend(String name, OrderArchive history) {
+        String key = normalize(name);
+        Archived a = archived(history).get(key);
+        Customer c = customers.get(key);
+        return (a == null ? 0 : a.spend) + (c == null ? 0 : c.spend.sum());
+    }
+
+    /**
+     * Returns the archived orders by customer, indexing the archive if it has
+     * not been indexed yet. Only the customer names, quantities and totals of
+     * the records are read; no order is decoded.
+     */
+    private synchronized Map<String, Archived> archived(OrderArchive history) {
+        if (history == null) {
+            return Collections.emptyMap();
+        }
+        if (history != archive) {
+            Map<String, Archived> byKey = new HashMap<>();
+            Map<String, Archived> byName = new HashMap<>();
+            for (int i = 0; i < history.size(); i++) {
+                String name = history.getCustomerName(i);
+                Archived a = byName.get(name);
+                if (a == null) {
+                    a = byKey.computeIfAbsent(normalize(name), k -> new Archived());
+                    byName.put(name, a);
+                }
+                if (a.count == a.positions.length) {
+                    a.positions = Arrays.copyOf(a.positions, a.count * 2);
+                }
+                a.positions[a.count++] = i;
+                a.quantity += history.getOrderQuantity(i);
+                a.spend += history.getOrderTotal(i);
+            }
+            for (Archived a : byKey.values()) {
+                a.positions = Arrays.copyOf(a.positions, a.count);
+            }
+            archive = history;
+            archived = byKey;
+        }
+        return archived;
+    }
+}
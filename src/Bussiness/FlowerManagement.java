@@ -1,41 +1,173 @@
 package Bussiness;
 
 import Model.Flower;
-import Tools.FileIO;
+import Tools.Codes;
+import Tools.Days;
 import Tools.InputFormatter;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import Tools.Journal;
+import Tools.StoreFile;
+import Tools.TablePrinter;
+import Tools.TrigramIndex;
+import Tools.Validator;
+import java.time.LocalDate;
+import java.util.AbstractSet;
 import java.util.ArrayList;
-import java.util.Date;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * This class represents a collection of Flower objects.
+ * This class represents a collection of Flower objects. The flowers are kept
+ * in a dense array indexed by the number of the flower ID (F001 is slot 1),
+ * so a lookup by ID is a single array read. Changes to one slot are made
+ * under one of a few striped locks, so flowers can be added, updated and
+ * queried from many threads at once; iteration is in flower ID order and
+ * weakly consistent.
+ * <p>
+ * Besides the name index, the flowers are indexed by unit price and by
+ * category, each kept sorted by unit price, so the flowers of a price band,
+ * of a category, or of both are found in logarithmic time plus the number
+ * of flowers found.
+ * <p>
+ * Flowers of the collection are never changed: updateFlower replaces a
+ * flower with an updated copy. A copy of the collection is therefore a
+ * consistent snapshot that can be written to disk while the collection keeps
+ * changing.
  * @author Nguyen Truong Tho
  */
-public class FlowerManagement extends HashSet<Flower> {
+public class FlowerManagement extends AbstractSet<Flower> {
 
-    private final String flowerFormat = "Flower Id must be in FXXX (with X is digit) format!";
-    private final String flowerRegex = "^[fF][0-9]{3,3}$";
-    private boolean isSaved = true;
+    private static final int LOCKS = 64;
+    private final AtomicReferenceArray<Flower> catalog = new AtomicReferenceArray<>(Codes.FLOWER_CAPACITY);
+    private final Object[] locks = new Object[LOCKS];
+    private final AtomicInteger count = new AtomicInteger();
+    private final TrigramIndex<Flower> nameIndex = new TrigramIndex<>();
+    private static final Comparator<Flower> BY_PRICE = Comparator.comparingDouble(Flower::getUnitPrice)
+            .thenComparing(Flower::getFlowerId);
+    private final ConcurrentSkipListSet<Flower> priceIndex = new ConcurrentSkipListSet<>(BY_PRICE);
+    private final ConcurrentHashMap<String, ConcurrentSkipListSet<Flower>> categoryIndex = new ConcurrentHashMap<>();
+    private Journal journal;
+    private Lock changeLock = new ReentrantReadWriteLock().readLock();
+    private final LinkedHashMap<String, Flower> changed = new LinkedHashMap<>();
+    private final LinkedHashSet<String> deleted = new LinkedHashSet<>();
 
     /**
-     * Returns the value indicating whether the data has been saved.
+     * Constructor for the FlowerManagement class.
+     */
+    public FlowerManagement() {
+        for (int i = 0; i < LOCKS; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    /**
+     * Checks if any flower has been added, updated or deleted since the last
+     * save.
+     *
+     * @return True if there are unsaved changes, false otherwise.
+     */
+    public synchronized boolean hasChanges() {
+        return !changed.isEmpty() || !deleted.isEmpty();
+    }
+
+    /**
+     * Marks a flower as added or updated since the last save.
+     *
+     * @param f The changed flower.
+     */
+    public synchronized void markChanged(Flower f) {
+        String key = f.getFlowerId().toUpperCase();
+        deleted.remove(key);
+        changed.put(key, f);
+    }
+
+    /**
+     * Marks a flower as deleted since the last save.
+     *
+     * @param flowerId The ID of the deleted flower.
+     */
+    public synchronized void markDeleted(String flowerId) {
+        String key = flowerId.toUpperCase();
+        changed.remove(key);
+        deleted.add(key);
+    }
+
+    /**
+     * Returns the flowers added or updated since the last save and starts
+     * tracking changes afresh.
+     *
+     * @return The list of changed flowers.
+     */
+    public synchronized List<Flower> takeChanged() {
+        List<Flower> list = new ArrayList<>(changed.values());
+        changed.clear();
+        return list;
+    }
+
+    /**
+     * Returns the IDs of the flowers deleted since the last save and starts
+     * tracking deletions afresh.
+     *
+     * @return The list of deleted flower IDs.
+     */
+    public synchronized List<String> takeDeleted() {
+        List<String> list = new ArrayList<>(deleted);
+        deleted.clear();
+        return list;
+    }
+
+    /**
+     * Marks again the changes taken for a save that has failed. A flower
+     * changed or deleted again since the changes were taken keeps its newer
+     * mark.
+     *
+     * @param changedFlowers The changed flowers that were taken.
+     * @param deletedIds The IDs of the deleted flowers that were taken.
+     */
+    public synchronized void restoreChanges(List<Flower> changedFlowers, List<String> deletedIds) {
+        for (Flower f : changedFlowers) {
+            String key = f.getFlowerId().toUpperCase();
+            if (!changed.containsKey(key) && !deleted.contains(key)) {
+                changed.put(key, f);
+            }
+        }
+        for (String key : deletedIds) {
+            if (!changed.containsKey(key) && !deleted.contains(key)) {
+                deleted.add(key);
+            }
+        }
+    }
+
+    /**
+     * Sets the journal that records every change made to the flowers.
      *
-     * @return True if the data has been saved, false otherwise.
+     * @param journal The journal, or null to stop recording changes.
      */
-    public boolean isIsSaved() {
-        return isSaved;
+    public void setJournal(Journal journal) {
+        this.journal = journal;
     }
 
     /**
-     * Sets the value indicating whether the data has been saved.
+     * Sets the lock every change is made under, from the change to its
+     * journal entry. The store passes the read lock it takes the changes
+     * under, so a compaction never sees a change that is not recorded yet.
      *
-     * @param isSaved True if the data has been saved, false otherwise.
+     * @param changeLock The lock.
      */
-    public void setIsSaved(boolean isSaved) {
-        this.isSaved = isSaved;
+    public void setLock(Lock changeLock) {
+        this.changeLock = changeLock;
     }
 
     /**
@@ -45,12 +177,19 @@ public class FlowerManagement extends HashSet<Flower> {
      * @return The Flower object with the specified ID, or null if not found.
      */
     public Flower getFlowerById(String flowerId) {
-        for (Flower f : this) {
-            if (f.getFlowerId().equalsIgnoreCase(flowerId)) {
-                return f;
-            }
-        }
-        return null;
+        return getFlower(Codes.flowerNumber(flowerId));
+    }
+
+    /**
+     * Retrieves the flower with the specified number, the number of its
+     * flower ID.
+     *
+     * @param number The number of the flower ID.
+     * @return The Flower object with the specified number, or null if not
+     * found.
+     */
+    public Flower getFlower(int number) {
+        return number < 0 || number >= Codes.FLOWER_CAPACITY ? null : catalog.get(number);
     }
 
     /**
@@ -60,7 +199,188 @@ public class FlowerManagement extends HashSet<Flower> {
      * @return True if the flower with the specified ID exists, false otherwise.
      */
     public boolean isExist(String flowerId) {
-        return this.contains(getFlowerById(flowerId));
+        return getFlowerById(flowerId) != null;
+    }
+
+    /**
+     * Returns the number of flowers in the collection.
+     *
+     * @return The number of flowers.
+     */
+    @Override
+    public int size() {
+        return count.get();
+    }
+
+    /**
+     * Checks if a flower is in the collection.
+     *
+     * @param o The flower to check.
+     * @return True if the flower is in the collection, false otherwise.
+     */
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Flower && getFlowerById(((Flower) o).getFlowerId()) == o;
+    }
+
+    /**
+     * Returns an iterator over the flowers in the collection. Flowers removed
+     * through the iterator are removed from the name index as well.
+     *
+     * @return The iterator.
+     */
+    @Override
+    public Iterator<Flower> iterator() {
+        return new Iterator<Flower>() {
+            private int slot = -1;
+            private Flower next = advance();
+            private Flower last;
+
+            private Flower advance() {
+                while (++slot < catalog.length()) {
+                    Flower f = catalog.get(slot);
+                    if (f != null) {
+                        return f;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Flower next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                last = next;
+                next = advance();
+                return last;
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
+                }
+                FlowerManagement.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    /**
+     * Adds a flower to the collection and indexes it by its flower ID,
+     * replacing any flower with the same ID. The indexes of one flower ID are
+     * updated atomically.
+     *
+     * @param f The flower to add.
+     * @return True if the flower has been added, false if it is already in
+     * the collection or its ID is not in the FXXX format.
+     */
+    @Override
+    public boolean add(Flower f) {
+        int n = Codes.flowerNumber(f.getFlowerId());
+        if (n < 0) {
+            return false;
+        }
+        synchronized (lockOf(n)) {
+            Flower old = catalog.get(n);
+            if (old == f) {
+                return false;
+            }
+            if (old != null) {
+                nameIndex.remove(old);
+                unindex(old);
+            } else {
+                count.incrementAndGet();
+            }
+            nameIndex.put(f, f.getName());
+            index(f);
+            catalog.set(n, f);
+            return true;
+        }
+    }
+
+    /**
+     * Removes a flower from the collection and from the indexes.
+     *
+     * @param o The flower to remove.
+     * @return True if the flower has been removed, false otherwise.
+     */
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Flower)) {
+            return false;
+        }
+        Flower f = (Flower) o;
+        int n = Codes.flowerNumber(f.getFlowerId());
+        if (n < 0) {
+            return false;
+        }
+        synchronized (lockOf(n)) {
+            if (catalog.get(n) != f) {
+                return false;
+            }
+            nameIndex.remove(f);
+            unindex(f);
+            catalog.set(n, null);
+            count.decrementAndGet();
+            return true;
+        }
+    }
+
+    /**
+     * Removes all flowers from the collection and clears the indexes. The
+     * collection must not be changed by other threads meanwhile.
+     */
+    @Override
+    public void clear() {
+        for (int n = 0; n < catalog.length(); n++) {
+            catalog.set(n, null);
+        }
+        count.set(0);
+        nameIndex.clear();
+        priceIndex.clear();
+        categoryIndex.clear();
+    }
+
+    /**
+     * Adds a flower to the price and category indexes.
+     */
+    private void index(Flower f) {
+        priceIndex.add(f);
+        categoryIndex.computeIfAbsent(categoryKey(f.getCategory()), k -> new ConcurrentSkipListSet<>(BY_PRICE)).add(f);
+    }
+
+    /**
+     * Removes a flower from the price and category indexes, dropping a
+     * category that has no flower left.
+     */
+    private void unindex(Flower f) {
+        priceIndex.remove(f);
+        categoryIndex.computeIfPresent(categoryKey(f.getCategory()), (k, set) -> {
+            set.remove(f);
+            return set.isEmpty() ? null : set;
+        });
+    }
+
+    /**
+     * Returns the key of a category in the category index. Categories are
+     * compared without regard to case.
+     */
+    private static String categoryKey(String category) {
+        return category == null ? "" : category.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the lock guarding a slot of the catalog.
+     */
+    private Object lockOf(int n) {
+        return locks[n & (LOCKS - 1)];
     }
 
     /**
@@ -72,7 +392,7 @@ public class FlowerManagement extends HashSet<Flower> {
         boolean flag = true;
         String flowerId = null;
         while (flag) {
-            flowerId = InputFormatter.getString("Enter Flower's Id (FXXX): ", flowerFormat, flowerRegex).toUpperCase();
+            flowerId = InputFormatter.getString("Enter Flower's Id (FXXX): ", Validator.FLOWER_ID_FORMAT, Validator::isFlowerId).toUpperCase();
             if (isExist(flowerId)) {
                 flag = false;
             } else {
@@ -85,25 +405,56 @@ public class FlowerManagement extends HashSet<Flower> {
     /**
      * Adds a new flower to the collection.
      *
-     * @throws ParseException If there is an error parsing the input.
      * @throws Exception If there is an exception during the execution of the
      * method.
      */
-    public void addFlower() throws ParseException, Exception {
-        String flowerId = InputFormatter.getString("Enter Flower's Id (FXXX): ", flowerFormat, flowerRegex).toUpperCase();
+    public void addFlower() throws Exception {
+        String flowerId = InputFormatter.getString("Enter Flower's Id (FXXX): ", Validator.FLOWER_ID_FORMAT, Validator::isFlowerId).toUpperCase();
         if (!isExist(flowerId)) {
-            String name = InputFormatter.getString("Enter Flower's Name: ", "The length of the description field must be from 3 to 50 characters.", "^[a-zA-Z0-9 ]{3,50}$");
-            Date date = InputFormatter.getDate("Enter Import Date: ");
+            String name = InputFormatter.getString("Enter Flower's Name: ", Validator.FLOWER_NAME_FORMAT, Validator::isFlowerName);
+            LocalDate date = InputFormatter.getDate("Enter Import Date: ");
             double unitPrice = InputFormatter.getDouble("Enter Unit Price: ", "The unit price field must be a positive number", 0, Double.MAX_VALUE);
             String category = InputFormatter.getString("Enter Category: ");
-            this.add(new Flower(flowerId, name, date, unitPrice, category));
+            addFlower(new Flower(flowerId, name, date, unitPrice, category));
             System.out.println(name + " has been added to store!");
-            setIsSaved(false);
         } else {
             System.out.println("The flower already exist!");
         }
     }
 
+    /**
+     * Adds a validated flower to the collection without prompting the user.
+     *
+     * @param f The flower to add.
+     * @return True if the flower has been added, false if a flower with the
+     * same ID already exists.
+     */
+    public boolean addFlower(final Flower f) {
+        int n = Codes.flowerNumber(f.getFlowerId());
+        if (n < 0) {
+            return false;
+        }
+        changeLock.lock();
+        try {
+            synchronized (lockOf(n)) {
+                if (catalog.get(n) != null) {
+                    return false;
+                }
+                nameIndex.put(f, f.getName());
+                index(f);
+                catalog.set(n, f);
+                count.incrementAndGet();
+                markChanged(f);
+                if (journal != null) {
+                    journal.logAddFlower(f);
+                }
+                return true;
+            }
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
     /**
      * Allows the user to find a flower based on the specified criteria.
      *
@@ -119,7 +470,7 @@ public class FlowerManagement extends HashSet<Flower> {
                 InputFormatter.pressEnterKey();
                 break;
             case 2:
-                String id = InputFormatter.getString("Enter Id (FXXX): ", flowerFormat, flowerRegex).toUpperCase();
+                String id = InputFormatter.getString("Enter Id (FXXX): ", Validator.FLOWER_ID_FORMAT, Validator::isFlowerId).toUpperCase();
                 displayFlower(findById(id));
                 InputFormatter.pressEnterKey();
                 break;
@@ -136,10 +487,9 @@ public class FlowerManagement extends HashSet<Flower> {
      */
     public List<Flower> findById(String flowerId) {
         List<Flower> list = new ArrayList<>();
-        for (Flower f : this) {
-            if (f.getFlowerId().equals(flowerId)) {
-                list.add(f);
-            }
+        Flower f = getFlowerById(flowerId);
+        if (f != null) {
+            list.add(f);
         }
         return list;
     }
@@ -151,13 +501,57 @@ public class FlowerManagement extends HashSet<Flower> {
      * @return A list of flowers with the specified name.
      */
     public List<Flower> findByName(String name) {
-        List<Flower> list = new ArrayList<>();
-        for (Flower f : this) {
-            if (f.getName().toLowerCase().contains(name.toLowerCase())) {
-                list.add(f);
-            }
+        return nameIndex.search(name);
+    }
+
+    /**
+     * Finds the flowers of a category, compared without regard to case.
+     *
+     * @param category The category to search for.
+     * @return The list of flowers of the category, by unit price.
+     */
+    public List<Flower> findByCategory(String category) {
+        NavigableSet<Flower> set = categoryIndex.get(categoryKey(category));
+        return set == null ? Collections.<Flower>emptyList() : new ArrayList<>(set);
+    }
+
+    /**
+     * Finds the flowers whose unit price is within a range.
+     *
+     * @param minPrice The lowest unit price (inclusive).
+     * @param maxPrice The highest unit price (inclusive).
+     * @return The list of flowers within the range, by unit price.
+     */
+    public List<Flower> findByPrice(double minPrice, double maxPrice) {
+        return band(priceIndex, minPrice, maxPrice);
+    }
+
+    /**
+     * Finds the flowers of a category whose unit price is within a range.
+     *
+     * @param category The category to search for.
+     * @param minPrice The lowest unit price (inclusive).
+     * @param maxPrice The highest unit price (inclusive).
+     * @return The list of flowers found, by unit price.
+     */
+    public List<Flower> findByCategory(String category, double minPrice, double maxPrice) {
+        NavigableSet<Flower> set = categoryIndex.get(categoryKey(category));
+        return set == null ? Collections.<Flower>emptyList() : band(set, minPrice, maxPrice);
+    }
+
+    /**
+     * Returns the flowers of a set sorted by unit price whose unit price is
+     * within a range. The bounds are flowers with an empty ID and with an ID
+     * after every other, so they sort before and after every flower of the
+     * same price.
+     */
+    private static List<Flower> band(NavigableSet<Flower> set, double minPrice, double maxPrice) {
+        if (!(minPrice <= maxPrice)) {
+            return Collections.emptyList();
         }
-        return list;
+        Flower from = new Flower("", null, Days.NONE, minPrice, null);
+        Flower to = new Flower("\uffff", null, Days.NONE, maxPrice, null);
+        return new ArrayList<>(set.subSet(from, true, to, true));
     }
 
     /**
@@ -167,16 +561,15 @@ public class FlowerManagement extends HashSet<Flower> {
      * @throws Exception If there is an error.
      */
     public void updateFlower(Flower f) throws Exception {
-        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyy");
         String name = InputFormatter.getString("Enter Flower's Name: ");
         String date = InputFormatter.getString("Enter Import Date: ");
         String unitPrice = InputFormatter.getString("Enter Unit Price: ");
         String category = InputFormatter.getString("Enter Category: ");
         try {
-            if (!name.isEmpty() && !name.matches("^[a-zA-Z0-9 ]{3,50}$")) {
+            if (!name.isEmpty() && !Validator.isFlowerName(name)) {
                 throw new Exception("The length of the Nsme field must be from 3 to 50 characters.");
             }
-            if (!date.isEmpty() && !InputFormatter.isValidDate(date)) {
+            if (!date.isEmpty() && !Validator.isDate(date)) {
                 throw new Exception("The import date field must be a valid date format.");
             }
             if (!unitPrice.isEmpty() && Double.parseDouble(unitPrice) < 0) {
@@ -186,63 +579,136 @@ public class FlowerManagement extends HashSet<Flower> {
             System.out.println("Wrong format, " + ex.getMessage());
             System.out.println("Failure!");
         } finally {
-            if (!name.isEmpty()) {
-                f.setName(name);
-            }
-            if (!date.isEmpty()) {
-                f.setImportDate(sdf.parse(date));
-            }
-            if (!unitPrice.isEmpty()) {
-                f.setUnitPrice(Double.parseDouble(unitPrice));
-            }
-            if (!category.isEmpty()) {
-                f.setCategory(category);
-            }
+            updateFlower(f, name.isEmpty() ? null : name, Validator.parseDate(date),
+                    unitPrice.isEmpty() ? null : Double.valueOf(unitPrice), category.isEmpty() ? null : category);
             System.out.println("Update success!");
-            setIsSaved(false);
         }
     }
 
     /**
-     * This method removes a flower from the list.
+     * Updates a flower with validated values without prompting the user. A
+     * null value leaves the field unchanged. The flower is not changed: an
+     * updated copy replaces the flower with the same ID in the collection and
+     * in the indexes, so a snapshot taken meanwhile holds either the old or
+     * the new flower, never a flower halfway updated. Updates of the same
+     * flower from several threads are applied one at a time.
+     *
+     * @param f The flower object.
+     * @param name The new name, or null.
+     * @param importDate The new import date, or null.
+     * @param unitPrice The new unit price, or null.
+     * @param category The new category, or null.
+     * @return The updated flower, or null if there is no flower with the ID of
+     * the flower in the collection.
+     */
+    public Flower updateFlower(final Flower f, final String name, LocalDate importDate, Double unitPrice, String category) {
+        int n = Codes.flowerNumber(f.getFlowerId());
+        if (n < 0) {
+            return null;
+        }
+        changeLock.lock();
+        try {
+            synchronized (lockOf(n)) {
+                Flower old = catalog.get(n);
+                if (old == null) {
+                    return null;
+                }
+                Flower updated = new Flower(old.getFlowerId(), name != null ? name : old.getName(),
+                        importDate != null ? Days.of(importDate) : old.getImportDay(),
+                        unitPrice != null ? unitPrice : old.getUnitPrice(), category != null ? category : old.getCategory());
+                nameIndex.remove(old);
+                unindex(old);
+                nameIndex.put(updated, updated.getName());
+                index(updated);
+                catalog.set(n, updated);
+                markChanged(updated);
+                if (journal != null) {
+                    journal.logUpdateFlower(updated);
+                }
+                return updated;
+            }
+        } finally {
+            changeLock.unlock();
+        }
+    }
+
+    /**
+     * This method removes a flower from the list. The deletion is marked and
+     * recorded in the journal under the lock of its slot, so a removal and a
+     * new flower with the same ID reach the journal in the order they are
+     * made.
      *
      * @param f The flower object.
      */
     public void removeFlower(Flower f) {
-        this.remove(f);
-        this.setIsSaved(false);
+        int n = Codes.flowerNumber(f.getFlowerId());
+        if (n < 0) {
+            return;
+        }
+        changeLock.lock();
+        try {
+            synchronized (lockOf(n)) {
+                if (this.remove(f)) {
+                    markDeleted(f.getFlowerId());
+                    if (journal != null) {
+                        journal.logDeleteFlower(f.getFlowerId());
+                    }
+                }
+            }
+        } finally {
+            changeLock.unlock();
+        }
     }
 
     /**
-     * This method displays a list of flowers.
+     * This method displays a list of flowers, one page at a time.
      *
      * @param list The list of flowers.
      */
     public void displayFlower(List<Flower> list) {
-        if (!list.isEmpty()) {
-            System.out.println("____________________________________________________________________________________");
-            System.out.println("|  No. | Flower ID |    Flower's Name     |  Import Date |  Unit Price  | Category |");
-            System.out.println("------------------------------------------------------------------------------------");
-            int no = 1;
-            for (Flower f : list) {
-                System.out.printf("|%6d", no++);
-                System.out.println(f);
-            }
-            System.out.println("____________________________________________________________________________________");
-        } else {
+        displayFlower(list.iterator(), 0, TablePrinter.PAGE_SIZE);
+    }
+
+    /**
+     * This method displays flowers straight from an iterator through a
+     * buffered printer, one page at a time.
+     *
+     * @param rows The flowers to display.
+     * @param offset The number of flowers to skip.
+     * @param pageSize The number of flowers of a page, or 0 to display every
+     * flower at once.
+     */
+    public void displayFlower(Iterator<Flower> rows, int offset, int pageSize) {
+        long no = TablePrinter.skip(rows, offset) + 1;
+        if (!rows.hasNext()) {
             System.out.println("The flower does not exist!");
+            return;
         }
+        TablePrinter out = new TablePrinter();
+        out.line("____________________________________________________________________________________");
+        out.line("|  No. | Flower ID |    Flower's Name     |  Import Date |  Unit Price  | Category |");
+        out.line("------------------------------------------------------------------------------------");
+        do {
+            for (int n = 0; rows.hasNext() && (pageSize <= 0 || n < pageSize); n++) {
+                out.row(no++, rows.next());
+            }
+        } while (rows.hasNext() && out.nextPage());
+        out.line("____________________________________________________________________________________");
+        out.flush();
     }
 
     /**
-     * This method saves data to a file.
+     * This method saves every flower to a file as a full snapshot.
      *
      * @param fileName The name of the file.
      */
     public void saveData(String fileName) {
-        if (FileIO.saveData(new ArrayList(this), fileName)) {
+        if (StoreFile.saveFlowers(new ArrayList<>(this), fileName)) {
             System.out.println("Flower's list has been saved!");
-            setIsSaved(true);
+            synchronized (this) {
+                changed.clear();
+                deleted.clear();
+            }
         } else {
             System.out.println("Failure!");
         }
@@ -254,12 +720,12 @@ public class FlowerManagement extends HashSet<Flower> {
      * @param fileName The name of the file.
      */
     public void loadData(String fileName) {
-        List<Flower> list = FileIO.loadData(fileName);
+        List<Flower> list = StoreFile.loadFlowers(fileName);
         if (!list.isEmpty()) {
-            if (!this.isEmpty()) {
-                this.clear();
-            }
+            this.clear();
             this.addAll(list);
+            changed.clear();
+            deleted.clear();
             System.out.println("Flower's list has been loaded!");
         } else {
             System.out.println("Empty file!");
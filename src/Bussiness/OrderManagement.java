@@ -3,58 +3,509 @@ package Bussiness;
 import Model.Flower;
 import Model.Order;
 import Model.OrderDetail;
-import Tools.FileIO;
+import Tools.Codes;
+import Tools.Days;
 import Tools.InputFormatter;
-import java.text.ParseException;
+import Tools.Journal;
+import Tools.OrderArchive;
+import Tools.RowFormatter;
+import Tools.StoreFile;
+import Tools.TablePrinter;
+import Tools.Validator;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.AbstractSet;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Date;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
- * This class represents a collection of Order objects.
+ * This class represents a collection of Order objects. The orders are kept in
+ * concurrent maps keyed by order ID, so orders can be added and queried from
+ * many threads at once; iteration is weakly consistent. A sorted set per sort
+ * field is kept up to date as orders are added and removed, so sorted pages
+ * are read without copying or sorting the collection. Orders are also indexed
+ * by flower, by day and by customer, and rolled up into sales figures.
  * @author Nguyen Truong Tho
  */
-public class OrderManagement extends HashSet<Order> {
+public class OrderManagement extends AbstractSet<Order> {
 
-    private boolean isSaved = false;
+    private final ConcurrentHashMap<Integer, Queue<Order>> flowerIndex = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<Integer, Queue<Order>> dateIndex = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, Order> idIndex = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<Order> byId = new ConcurrentSkipListSet<>(comparator(1));
+    private final ConcurrentSkipListSet<Order> byDate = new ConcurrentSkipListSet<>(comparator(2));
+    private final ConcurrentSkipListSet<Order> byCustomer = new ConcurrentSkipListSet<>(comparator(3));
+    private final ConcurrentSkipListSet<Order> byTotal = new ConcurrentSkipListSet<>(comparator(4));
+    private final CustomerIndex customerIndex = new CustomerIndex();
+    private final SalesRollup rollup = new SalesRollup();
+    private final AtomicLong lastOrderId = new AtomicLong();
+    /**
+     * The number of orders from which sorting and totalling run in parallel.
+     */
+    public static final int PARALLEL_THRESHOLD = Integer.getInteger("store.parallelThreshold", 1 << 15);
+    private static final int BLOCK_SIZE = 4096;
+    private volatile OrderArchive history;
+    private Journal journal;
+    private Lock changeLock = new ReentrantReadWriteLock().readLock();
+    private final Queue<Order> added = new ConcurrentLinkedQueue<>();
+    private final LongAdder totalQuantity = new LongAdder();
+    private final DoubleAdder totalCost = new DoubleAdder();
+    private OrderArchive totalled;
+    private long archiveQuantity;
+    private double archiveCost;
+
+    /**
+     * Checks if any order has been added since the last save.
+     *
+     * @return True if there are unsaved orders, false otherwise.
+     */
+    public boolean hasChanges() {
+        return !added.isEmpty();
+    }
+
+    /**
+     * Returns the total quantity of flowers over every order of the store,
+     * the archived orders included.
+     *
+     * @return The total quantity of flowers.
+     */
+    public synchronized long getTotalQuantity() {
+        totalArchive();
+        return totalQuantity.sum() + archiveQuantity;
+    }
 
     /**
-     * Checks if the data is saved.
+     * Returns the total cost over every order of the store, the archived
+     * orders included.
      *
-     * @return True if the data is saved, false otherwise.
+     * @return The total cost.
      */
-    public boolean isIsSaved() {
-        return isSaved;
+    public synchronized double getTotalCost() {
+        totalArchive();
+        return totalCost.sum() + archiveCost;
     }
 
     /**
-     * Sets the saved status of the data.
+     * Adds up the quantities and totals of the archived orders the first time
+     * they are needed after the archive is opened. The archive never changes
+     * once opened, so they are kept until another archive is opened; the
+     * orders of the collection are kept in running totals instead.
+     */
+    private void totalArchive() {
+        OrderArchive archive = history;
+        if (archive != totalled) {
+            long quantity = 0;
+            double cost = 0;
+            for (int i = 0; archive != null && i < archive.size(); i++) {
+                quantity += archive.getOrderQuantity(i);
+                cost += archive.getOrderTotal(i);
+            }
+            archiveQuantity = quantity;
+            archiveCost = cost;
+            totalled = archive;
+        }
+    }
+
+    /**
+     * Marks an order as added since the last save.
      *
-     * @param isSaved True if the data is saved, false otherwise.
+     * @param o The added order.
      */
-    public void setIsSaved(boolean isSaved) {
-        this.isSaved = isSaved;
+    public void markAdded(Order o) {
+        added.add(o);
     }
 
     /**
-     * Checks if a flower is included in any order.
+     * Returns the orders added since the last save and starts tracking new
+     * orders afresh.
+     *
+     * @return The list of added orders.
+     */
+    public List<Order> takeAdded() {
+        List<Order> list = new ArrayList<>();
+        Order o;
+        while ((o = added.poll()) != null) {
+            list.add(o);
+        }
+        return list;
+    }
+
+    /**
+     * Marks again the orders taken for a save that has failed.
+     *
+     * @param orders The added orders that were taken.
+     */
+    public void restoreAdded(List<Order> orders) {
+        added.addAll(orders);
+    }
+
+    /**
+     * Sets the journal that records every order added to the collection.
+     *
+     * @param journal The journal, or null to stop recording changes.
+     */
+    public void setJournal(Journal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Sets the lock an order is added under, from taking its ID to its
+     * journal entry. The store passes the read lock it takes the changes
+     * under, so a compaction never sees an ID that is not recorded yet.
+     *
+     * @param changeLock The lock.
+     */
+    public void setLock(Lock changeLock) {
+        this.changeLock = changeLock;
+    }
+
+    /**
+     * Retrieves the order with the specified order ID.
+     *
+     * @param orderId The order ID to search for.
+     * @return The Order object with the specified ID, or null if not found.
+     */
+    public Order getOrderById(String orderId) {
+        return idIndex.get(orderId);
+    }
+
+    /**
+     * Checks if a flower is included in any order. The order archive is
+     * checked against the flowers listed for each of its partitions, without
+     * reading the orders.
      *
      * @param flower The flower to check.
      * @return True if the flower is included in any order, false otherwise.
      */
     public boolean isInOrder(Flower flower) {
-        boolean isInOrder = false;
-        for (Order o : this) {
-            for (OrderDetail d : o.getOrderDetail()) {
-                if (flower.getFlowerId().equals(d.getFlowerId())) {
-                    isInOrder = true;
-                    break;
+        OrderArchive archive = history;
+        return flowerIndex.containsKey(Codes.flowerCode(flower.getFlowerId()))
+                || (archive != null && archive.containsFlower(flower.getFlowerId()));
+    }
+
+    /**
+     * Returns the number of orders, including the orders of the order
+     * archive.
+     *
+     * @return The number of orders.
+     */
+    public int getOrderCount() {
+        OrderArchive archive = history;
+        return archive == null ? this.size() : this.size() + archive.size();
+    }
+
+    /**
+     * Checks if an order ID is taken, either by an order of the collection or
+     * by an order of the order archive. Orders are written to the archive in
+     * order ID order, so every order numbered up to the archive's last order
+     * number is in the archive.
+     *
+     * @param orderId The order ID to check.
+     * @return True if the order ID is taken, false otherwise.
+     */
+    public boolean hasOrder(String orderId) {
+        if (idIndex.containsKey(orderId)) {
+            return true;
+        }
+        OrderArchive archive = history;
+        long n = orderNumber(orderId);
+        return archive != null && n > 0 && n <= archive.getLastOrderId();
+    }
+
+    /**
+     * Returns the highest order number given out so far.
+     *
+     * @return The highest order number.
+     */
+    public long getLastOrderId() {
+        return lastOrderId.get();
+    }
+
+    /**
+     * Retrieves the orders that contain the specified flower, including the
+     * orders of the order archive, which come first. Only the partitions of
+     * the archive whose orders include the flower are read.
+     *
+     * @param flowerId The flower ID to search for.
+     * @return The list of orders containing the flower, empty if there is
+     * none.
+     */
+    public List<Order> getOrdersByFlowerId(String flowerId) {
+        OrderArchive archive = history;
+        Queue<Order> list = flowerIndex.get(Codes.flowerCode(flowerId));
+        List<Order> orders = archive == null ? new ArrayList<>() : archive.findByFlower(flowerId);
+        if (list != null) {
+            orders.addAll(list);
+        }
+        return orders;
+    }
+
+    /**
+     * Retrieves the orders of a customer, including the orders of the order
+     * archive. Customer names are compared without regard to case and to
+     * extra spaces.
+     *
+     * @param customerName The customer name to search for.
+     * @return The list of the customer's orders, empty if there is none.
+     */
+    public List<Order> getOrdersByCustomer(String customerName) {
+        return customerIndex.getOrders(customerName, history);
+    }
+
+    /**
+     * Returns the number of orders of a customer, including the orders of the
+     * order archive.
+     *
+     * @param customerName The customer name.
+     * @return The number of orders.
+     */
+    public int getCustomerOrderCount(String customerName) {
+        return customerIndex.getOrderCount(customerName, history);
+    }
+
+    /**
+     * Returns the total quantity of flowers a customer has ordered, including
+     * the orders of the order archive.
+     *
+     * @param customerName The customer name.
+     * @return The total quantity of flowers.
+     */
+    public long getCustomerQuantity(String customerName) {
+        return customerIndex.getQuantity(customerName, history);
+    }
+
+    /**
+     * Returns the total a customer has spent, including the orders of the
+     * order archive.
+     *
+     * @param customerName The customer name.
+     * @return The total cost of the customer's orders.
+     */
+    public double getCustomerSpend(String customerName) {
+        return customerIndex.getSpend(customerName, history);
+    }
+
+    /**
+     * Returns the sales rollups of the orders, including the orders of the
+     * order archive.
+     *
+     * @return The sales rollups.
+     */
+    public SalesRollup getRollup() {
+        return rollup;
+    }
+
+    /**
+     * Returns the number of orders in the collection, not counting the orders
+     * of the order archive.
+     *
+     * @return The number of orders.
+     */
+    @Override
+    public int size() {
+        return idIndex.size();
+    }
+
+    /**
+     * Checks if an order is in the collection.
+     *
+     * @param obj The order to check.
+     * @return True if the order is in the collection, false otherwise.
+     */
+    @Override
+    public boolean contains(Object obj) {
+        return obj instanceof Order && idIndex.get(((Order) obj).getOrderId()) == obj;
+    }
+
+    /**
+     * Returns an iterator over the orders in the collection. Orders removed
+     * through the iterator are removed from the indexes as well.
+     *
+     * @return The iterator.
+     */
+    @Override
+    public Iterator<Order> iterator() {
+        final Iterator<Order> it = idIndex.values().iterator();
+        return new Iterator<Order>() {
+            private Order last;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public Order next() {
+                return last = it.next();
+            }
+
+            @Override
+            public void remove() {
+                if (last == null) {
+                    throw new IllegalStateException();
                 }
+                OrderManagement.this.remove(last);
+                last = null;
+            }
+        };
+    }
+
+    /**
+     * Adds an order to the collection and indexes it by the flowers it
+     * contains. An order whose ID is already in the collection is not added.
+     *
+     * @param o The order to add.
+     * @return True if the order has been added, false otherwise.
+     */
+    @Override
+    public boolean add(Order o) {
+        if (idIndex.putIfAbsent(o.getOrderId(), o) != null) {
+            return false;
+        }
+        long n = orderNumber(o.getOrderId());
+        if (n > 0) {
+            lastOrderId.accumulateAndGet(n, Math::max);
+        }
+        totalQuantity.add(o.getQuantity());
+        totalCost.add(o.getFlowerCost());
+        for (int flower : flowersOf(o)) {
+            flowerIndex.compute(flower, (k, list) -> {
+                if (list == null) {
+                    list = new ConcurrentLinkedQueue<>();
+                }
+                list.add(o);
+                return list;
+            });
+        }
+        dateIndex.computeIfAbsent(o.getOrderDay(), k -> new ConcurrentLinkedQueue<>()).add(o);
+        customerIndex.add(o);
+        rollup.add(o);
+        byId.add(o);
+        byDate.add(o);
+        byCustomer.add(o);
+        byTotal.add(o);
+        return true;
+    }
+
+    /**
+     * Removes an order from the collection and from the indexes. A day whose
+     * orders have all been removed keeps an empty entry in the date index.
+     *
+     * @param obj The order to remove.
+     * @return True if the order has been removed, false otherwise.
+     */
+    @Override
+    public boolean remove(Object obj) {
+        if (!(obj instanceof Order) || !idIndex.remove(((Order) obj).getOrderId(), obj)) {
+            return false;
+        }
+        Order o = (Order) obj;
+        totalQuantity.add(-o.getQuantity());
+        totalCost.add(-o.getFlowerCost());
+        for (int flower : flowersOf(o)) {
+            flowerIndex.computeIfPresent(flower, (k, list) -> {
+                list.remove(o);
+                return list.isEmpty() ? null : list;
+            });
+        }
+        Queue<Order> sameDay = dateIndex.get(o.getOrderDay());
+        if (sameDay != null) {
+            sameDay.remove(o);
+        }
+        customerIndex.remove(o);
+        rollup.remove(o);
+        byId.remove(o);
+        byDate.remove(o);
+        byCustomer.remove(o);
+        byTotal.remove(o);
+        return true;
+    }
+
+    /**
+     * Removes all orders from the collection, clears the indexes and closes
+     * the order archive if there is one. The collection must not be changed by
+     * other threads meanwhile.
+     */
+    @Override
+    public void clear() {
+        idIndex.clear();
+        lastOrderId.set(0);
+        totalQuantity.reset();
+        totalCost.reset();
+        flowerIndex.clear();
+        dateIndex.clear();
+        customerIndex.clear();
+        rollup.clear();
+        byId.clear();
+        byDate.clear();
+        byCustomer.clear();
+        byTotal.clear();
+        closeHistory();
+    }
+
+    /**
+     * Returns the number of an order ID, or 0 if the ID is not a number.
+     */
+    static long orderNumber(String orderId) {
+        if (orderId == null || orderId.isEmpty() || orderId.length() > 18) {
+            return 0;
+        }
+        long n = 0;
+        for (int i = 0; i < orderId.length(); i++) {
+            char c = orderId.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+            n = n * 10 + (c - '0');
+        }
+        return n;
+    }
+
+    /**
+     * Collects the distinct packed flower IDs of an order.
+     *
+     * @param o The order.
+     * @return The packed flower IDs in the order.
+     */
+    private static int[] flowersOf(Order o) {
+        List<OrderDetail> details = o.getOrderDetail();
+        int[] flowers = new int[details.size()];
+        int n = 0;
+        for (OrderDetail d : details) {
+            int flower = d.getFlowerCode();
+            int i = 0;
+            while (i < n && flowers[i] != flower) {
+                i++;
+            }
+            if (i == n) {
+                flowers[n++] = flower;
             }
         }
-        return isInOrder;
+        return n == flowers.length ? flowers : Arrays.copyOf(flowers, n);
     }
 
     /**
@@ -62,18 +513,42 @@ public class OrderManagement extends HashSet<Order> {
      *
      * @param flowerList The FlowerManagement instance containing the flower
      * list.
-     * @throws ParseException If an error occurs during the parsing of the order
-     * date.
      * @throws Exception If an error occurs during the order addition process.
      */
-    public void addOrder(FlowerManagement flowerList) throws ParseException, Exception {
-        String orderId = String.format("%04d", this.size() + 1);
-        Date orderDate = InputFormatter.getDate("Enter Order Date: ");
-        String custumerName = InputFormatter.getString("Enter Customer's Name: ", "Must be in name format!", "^[a-zA-Z ]+$");
+    public void addOrder(FlowerManagement flowerList) throws Exception {
+        LocalDate orderDate = InputFormatter.getDate("Enter Order Date: ");
+        String custumerName = InputFormatter.getString("Enter Customer's Name: ", Validator.CUSTOMER_NAME_FORMAT, Validator::isCustomerName);
         List<OrderDetail> orderDetail = inputOrderDetail(flowerList);
-        this.add(new Order(orderId, orderDate, custumerName, orderDetail));
+        addOrder(orderDate, custumerName, orderDetail);
         System.out.println(custumerName + "'s order has been added to store!");
-        setIsSaved(false);
+    }
+
+    /**
+     * Adds a validated order to the collection without prompting the user.
+     * The order gets the next order ID. Order IDs are taken from a sequence
+     * that only grows: it continues from the highest order ID loaded, opened
+     * or replayed from the journal, so an ID is never given out twice, even
+     * across restarts.
+     *
+     * @param orderDate The date the order was placed.
+     * @param customerName The name of the customer who placed the order.
+     * @param orderDetail The details of the order.
+     * @return The added order.
+     */
+    public Order addOrder(LocalDate orderDate, String customerName, List<OrderDetail> orderDetail) {
+        changeLock.lock();
+        try {
+            String orderId = formatId(lastOrderId.incrementAndGet());
+            Order o = new Order(orderId, orderDate, customerName, orderDetail);
+            this.add(o);
+            markAdded(o);
+            if (journal != null) {
+                journal.logAddOrder(o);
+            }
+            return o;
+        } finally {
+            changeLock.unlock();
+        }
     }
 
     /**
@@ -89,7 +564,7 @@ public class OrderManagement extends HashSet<Order> {
         List<OrderDetail> orderDetail = new ArrayList<>();
         boolean flag = true;
         while (flag) {
-            String orderDetailId = String.format("%04d", orderDetail.size() + 1);
+            String orderDetailId = formatId(orderDetail.size() + 1);
             String flowerId = flowerList.getFlowerIdExist();
             int quantity = InputFormatter.getInt("Enter quantity: ", "Quantity must be greater than 0!", 1, Integer.MAX_VALUE);
             double flowerCost = flowerList.getFlowerById(flowerId).getUnitPrice() * quantity;
@@ -99,95 +574,536 @@ public class OrderManagement extends HashSet<Order> {
         return orderDetail;
     }
 
+    /**
+     * Formats an order or order detail number as an ID of at least four
+     * digits, the same as String.format("%04d", n).
+     *
+     * @param n The number.
+     * @return The ID.
+     */
+    static String formatId(long n) {
+        String digits = Long.toString(n);
+        switch (digits.length()) {
+            case 1:
+                return "000" + digits;
+            case 2:
+                return "00" + digits;
+            case 3:
+                return "0" + digits;
+            default:
+                return digits;
+        }
+    }
+
     /**
      * Retrieves a list of orders within a specified date range.
      *
      * @return The list of orders within the specified date range.
-     * @throws ParseException If an error occurs during the parsing of the start
-     * and end dates.
      */
-    public List showOrder() throws ParseException {
-        List<Order> list = new ArrayList<>();
-        Date startDay = InputFormatter.getDate("Enter Start Day: ");
-        Date endDay = InputFormatter.getDateAfter("Enter End Day: ", startDay);
-        for (Order o : this) {
-            Date date = o.getOrderDate();
-            if (date.compareTo(startDay) >= 0 && date.compareTo(endDay) <= 0) {
-                list.add(o);
-            }
+    public List<Order> showOrder() {
+        LocalDate startDay = InputFormatter.getDate("Enter Start Day: ");
+        LocalDate endDay = InputFormatter.getDateAfter("Enter End Day: ", startDay);
+        return streamByDate(startDay, endDay).collect(Collectors.toList());
+    }
+
+    /**
+     * Streams the orders placed within a date range, in order date order.
+     * Only the orders inside the range are visited, so callers can page
+     * through the result with skip and limit.
+     *
+     * @param startDay The first day of the range (inclusive).
+     * @param endDay The last day of the range (inclusive).
+     * @return A stream of the orders within the date range.
+     */
+    public Stream<Order> streamByDate(LocalDate startDay, LocalDate endDay) {
+        return streamByDate(Days.of(startDay), Days.of(endDay));
+    }
+
+    /**
+     * Streams the orders placed within a range of epoch days, in order date
+     * order. The orders of the order archive are merged with the orders of
+     * the collection as the stream is read, the archive's first on the same
+     * day, so taking a page of a long range only decodes the orders up to
+     * that page.
+     *
+     * @param startDay The first epoch day of the range (inclusive).
+     * @param endDay The last epoch day of the range (inclusive).
+     * @return A stream of the orders within the date range.
+     */
+    public Stream<Order> streamByDate(int startDay, int endDay) {
+        if (startDay > endDay) {
+            return Stream.empty();
         }
-        return list;
+        Stream<Order> stream = dateIndex.subMap(startDay, true, endDay, true).values().stream().flatMap(Queue::stream);
+        OrderArchive archive = history;
+        if (archive == null || archive.isEmpty()) {
+            return stream;
+        }
+        Iterator<Order> it = merge(archive.iterateByDate(startDay, endDay), stream.iterator(), Comparator.comparingInt(Order::getOrderDay));
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Merges two iterators sorted by the same comparator into one, taking
+     * from the first on ties. Each element is read only when it is reached.
+     */
+    private static Iterator<Order> merge(final Iterator<Order> first, final Iterator<Order> second, final Comparator<Order> c) {
+        return new Iterator<Order>() {
+            private Order a;
+            private Order b;
+
+            @Override
+            public boolean hasNext() {
+                return a != null || b != null || first.hasNext() || second.hasNext();
+            }
+
+            @Override
+            public Order next() {
+                if (a == null && first.hasNext()) {
+                    a = first.next();
+                }
+                if (b == null && second.hasNext()) {
+                    b = second.next();
+                }
+                Order o;
+                if (b == null || (a != null && c.compare(a, b) <= 0)) {
+                    o = a;
+                    a = null;
+                } else {
+                    o = b;
+                    b = null;
+                }
+                if (o == null) {
+                    throw new NoSuchElementException();
+                }
+                return o;
+            }
+        };
+    }
+
+    /**
+     * Retrieves one page of the orders placed within a date range.
+     *
+     * @param startDay The first day of the range (inclusive).
+     * @param endDay The last day of the range (inclusive).
+     * @param offset The number of orders to skip.
+     * @param limit The maximum number of orders to return.
+     * @return The page of orders within the date range.
+     */
+    public List<Order> findByDate(LocalDate startDay, LocalDate endDay, int offset, int limit) {
+        return streamByDate(startDay, endDay).skip(offset).limit(limit).collect(Collectors.toList());
     }
 
     /**
      * Sorts the order list based on a chosen field.
      *
      * @param field The field to sort the order list by.
-     * @return The sorted order list.
+     * @return An iterator over the sorted order list.
      * @throws Exception If an error occurs during the sorting process.
      */
-    public List sortByField(int field) throws Exception {
-        List<Order> sortList = new ArrayList<>(this);
+    public Iterator<Order> sortByField(int field) throws Exception {
+        System.out.printf("SORT ORDER:\n1. ASCENDING\n2. DESCENDING\n");
+        int order = InputFormatter.getInt("Enter your choice: ", "Choose between 1 and 2, please!", 1, 2);
+        return sorted(field, order == 2);
+    }
+
+    /**
+     * Sorts the order list based on a field without prompting the user.
+     *
+     * @param field The field to sort the order list by (1. order ID, 2. order
+     * date, 3. customer name, 4. order total).
+     * @param descending True to sort in descending order, false otherwise.
+     * @return The sorted order list.
+     */
+    public List<Order> sort(int field, boolean descending) {
+        return sort(field, descending, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Retrieves one page of the orders sorted by a field. The orders before
+     * the page are skipped and the page is read from the sorted sets, so the
+     * collection is neither copied nor sorted.
+     *
+     * @param field The field to sort by (1. order ID, 2. order date, 3.
+     * customer name, 4. order total).
+     * @param descending True to sort in descending order, false otherwise.
+     * @param offset The number of orders to skip.
+     * @param limit The maximum number of orders to return.
+     * @return The page of sorted orders.
+     */
+    public List<Order> sort(int field, boolean descending, int offset, int limit) {
+        Iterator<Order> it = sorted(field, descending);
+        for (int i = 0; i < offset && it.hasNext(); i++) {
+            it.next();
+        }
+        List<Order> page = new ArrayList<>(Math.min(limit, 1024));
+        while (page.size() < limit && it.hasNext()) {
+            page.add(it.next());
+        }
+        return page;
+    }
+
+    /**
+     * Returns an iterator over the orders sorted by a field, including the
+     * orders of the order archive. The orders of the collection are read from
+     * the sorted set of the field and merged with the archive's orders, which
+     * are sorted once per opened archive and decoded as they are reached.
+     *
+     * @param field The field to sort by (1. order ID, 2. order date, 3.
+     * customer name, 4. order total).
+     * @param descending True to sort in descending order, false otherwise.
+     * @return The iterator.
+     */
+    public Iterator<Order> sorted(int field, boolean descending) {
+        NavigableSet<Order> view = view(field);
+        final Iterator<Order> it = (descending ? view.descendingSet() : view).iterator();
+        final OrderArchive archive = history;
+        if (archive == null || archive.isEmpty()) {
+            return it;
+        }
+        final int[] positions = archive.sortedPositions(field, () -> sortPositions(archive, field));
+        final Comparator<Order> c = descending ? comparator(field).reversed() : comparator(field);
+        return new Iterator<Order>() {
+            private int next;
+            private Order stored;
+            private Order archived;
+
+            @Override
+            public boolean hasNext() {
+                return stored != null || archived != null || next < positions.length || it.hasNext();
+            }
+
+            @Override
+            public Order next() {
+                if (archived == null && next < positions.length) {
+                    archived = archive.get(positions[descending ? positions.length - 1 - next : next]);
+                    next++;
+                }
+                if (stored == null && it.hasNext()) {
+                    stored = it.next();
+                }
+                Order o;
+                if (stored == null || (archived != null && c.compare(archived, stored) <= 0)) {
+                    o = archived;
+                    archived = null;
+                } else {
+                    o = stored;
+                    stored = null;
+                }
+                if (o == null) {
+                    throw new NoSuchElementException();
+                }
+                return o;
+            }
+        };
+    }
+
+    /**
+     * Returns the sorted set of a sort field.
+     */
+    private NavigableSet<Order> view(int field) {
         switch (field) {
             case 1:
-                //Collections.sort(sortList, (Patient p1, Patient p2) -> p1.getId().compareTo(p2.getId()));
-                Collections.sort(sortList, (Order o1, Order o2) -> o1.getOrderId().compareTo(o2.getOrderId()));
-                break;
+                return byId;
             case 2:
-                Collections.sort(sortList, (Order o1, Order o2) -> o1.getOrderDate().compareTo(o2.getOrderDate()));
-                break;
+                return byDate;
             case 3:
-                Collections.sort(sortList, (Order o1, Order o2) -> o1.getCustomerName().compareTo(o2.getCustomerName()));
-                break;
+                return byCustomer;
             case 4:
-                Collections.sort(sortList, (Order o1, Order o2) -> (int) (o1.getFlowerCost() - o2.getFlowerCost()));
-                break;
+                return byTotal;
+            default:
+                throw new IllegalArgumentException("Unknown sort field: " + field);
         }
-        System.out.printf("SORT ORDER:\n1. ASCENDING\n2. DESCENDING\n");
-        int order = InputFormatter.getInt("Enter your choice: ", "Choose between 1 and 2, please!", 1, 2);
-        if (order == 2) {
-            Collections.reverse(sortList);
+    }
+
+    /**
+     * Returns the comparator for a sort field. Order IDs are compared as
+     * numbers, and orders that are equal on the field are ordered by order
+     * ID, so no two orders of a sorted set compare as equal.
+     *
+     * @param field The field to sort by (1. order ID, 2. order date, 3.
+     * customer name, 4. order total).
+     * @return The comparator, or null for an unknown field.
+     */
+    public static Comparator<Order> comparator(int field) {
+        Comparator<Order> byId = (Order o1, Order o2) -> compareIds(o1.getOrderId(), o2.getOrderId());
+        switch (field) {
+            case 1:
+                return byId;
+            case 2:
+                return Comparator.comparingInt(Order::getOrderDay).thenComparing(byId);
+            case 3:
+                return Comparator.comparing(Order::getCustomerName, Comparator.nullsFirst(Comparator.<String>naturalOrder())).thenComparing(byId);
+            case 4:
+                return Comparator.comparingDouble(Order::getFlowerCost).thenComparing(byId);
+            default:
+                return null;
         }
-        return sortList;
     }
 
     /**
-     * Displays the list of orders.
+     * Sorts the positions of an archive's orders the same as
+     * comparator(field) sorts decoded orders. Large archives are read and
+     * sorted in parallel.
+     */
+    private static int[] sortPositions(OrderArchive archive, int field) {
+        int n = archive.size();
+        boolean parallel = isParallel(n);
+        Integer[] boxed = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            boxed[i] = i;
+        }
+        sort(boxed, positionComparator(archive, field, parallel), parallel);
+        int[] positions = new int[n];
+        for (int i = 0; i < n; i++) {
+            positions[i] = boxed[i];
+        }
+        return positions;
+    }
+
+    /**
+     * Returns a comparator of archive positions that orders the archive's
+     * orders the same as comparator(field) orders decoded orders. The field
+     * of every order is read once, without decoding the orders.
+     */
+    private static Comparator<Integer> positionComparator(final OrderArchive archive, int field, boolean parallel) {
+        final int n = archive.size();
+        final long[] numbers = new long[n];
+        forEach(n, parallel, i -> numbers[i] = orderNumber(archive.getOrderId(i)));
+        Comparator<Integer> byId = (Integer i, Integer j) -> {
+            int r = Long.compare(numbers[i], numbers[j]);
+            return r != 0 ? r : archive.getOrderId(i).compareTo(archive.getOrderId(j));
+        };
+        switch (field) {
+            case 2:
+                final int[] days = new int[n];
+                forEach(n, parallel, i -> days[i] = archive.getOrderDay(i));
+                return Comparator.<Integer>comparingInt(i -> days[i]).thenComparing(byId);
+            case 3:
+                final String[] names = new String[n];
+                forEach(n, parallel, i -> names[i] = archive.getCustomerName(i));
+                return Comparator.<Integer, String>comparing(i -> names[i], Comparator.nullsFirst(Comparator.<String>naturalOrder())).thenComparing(byId);
+            case 4:
+                final double[] totals = new double[n];
+                forEach(n, parallel, i -> totals[i] = archive.getOrderTotal(i));
+                return Comparator.<Integer>comparingDouble(i -> totals[i]).thenComparing(byId);
+            default:
+                return byId;
+        }
+    }
+
+    /**
+     * Checks if an operation over a number of orders should run in parallel.
+     *
+     * @param n The number of orders.
+     * @return True if n reaches the parallel threshold, false otherwise.
+     */
+    public static boolean isParallel(int n) {
+        return n >= PARALLEL_THRESHOLD;
+    }
+
+    /**
+     * Sorts an array by a comparator, on the fork/join pool if asked to. Both
+     * sorts are stable, so they give the same result.
+     *
+     * @param <T> The type of the elements.
+     * @param a The array to sort.
+     * @param c The comparator.
+     * @param parallel True to sort in parallel, false otherwise.
+     */
+    public static <T> void sort(T[] a, Comparator<? super T> c, boolean parallel) {
+        if (parallel) {
+            Arrays.parallelSort(a, c);
+        } else {
+            Arrays.sort(a, c);
+        }
+    }
+
+    /**
+     * Adds up the flower quantities of a list of orders.
+     *
+     * @param list The list of orders.
+     * @param parallel True to add up on the fork/join pool, false otherwise.
+     * @return The total quantity of flowers.
+     */
+    public static long totalQuantity(List<Order> list, boolean parallel) {
+        Stream<Order> stream = parallel ? randomAccess(list).parallelStream() : list.stream();
+        return stream.mapToLong(Order::getQuantity).sum();
+    }
+
+    /**
+     * Adds up the totals of a list of orders. The totals are added up in
+     * blocks of a fixed size, then the block sums are added up in order, so
+     * the sum is the same whether the blocks are added up in parallel or not.
+     *
+     * @param list The list of orders.
+     * @param parallel True to add up the blocks on the fork/join pool, false
+     * otherwise.
+     * @return The total cost.
+     */
+    public static double totalCost(List<Order> list, boolean parallel) {
+        final List<Order> orders = randomAccess(list);
+        final double[] sums = new double[(orders.size() + BLOCK_SIZE - 1) / BLOCK_SIZE];
+        forEach(sums.length, parallel, b -> {
+            double sum = 0;
+            for (int i = b * BLOCK_SIZE, end = Math.min(i + BLOCK_SIZE, orders.size()); i < end; i++) {
+                sum += orders.get(i).getFlowerCost();
+            }
+            sums[b] = sum;
+        });
+        double total = 0;
+        for (double sum : sums) {
+            total += sum;
+        }
+        return total;
+    }
+
+    /**
+     * Runs an action for every index below n, on the fork/join pool if asked
+     * to.
+     */
+    private static void forEach(int n, boolean parallel, IntConsumer action) {
+        if (parallel) {
+            IntStream.range(0, n).parallel().forEach(action);
+        } else {
+            for (int i = 0; i < n; i++) {
+                action.accept(i);
+            }
+        }
+    }
+
+    /**
+     * Returns a list that can be split by index, copying it if needed.
+     */
+    private static List<Order> randomAccess(List<Order> list) {
+        return list instanceof RandomAccess ? list : new ArrayList<>(list);
+    }
+
+    /**
+     * Compares order IDs by number, then as strings for IDs that are not
+     * numbers or have leading zeros.
+     */
+    private static int compareIds(String id1, String id2) {
+        int r = Long.compare(orderNumber(id1), orderNumber(id2));
+        return r != 0 ? r : id1.compareTo(id2);
+    }
+
+    /**
+     * Displays the list of orders, one page at a time. The footer adds up the
+     * totals each order computed when it was created, over the whole list and
+     * in parallel for large lists.
      *
      * @param list The list of orders to display.
      */
     public void displayOrder(List<Order> list) {
-        if (!list.isEmpty()) {
-            int count = 0;
-            double total = 0;
-            System.out.println("_______________________________________________________________________________________");
-            System.out.println("|  No. | Order ID  |  Order Date  |    Customer's Name   | Flower Count | Order Total |");
-            System.out.println("---------------------------------------------------------------------------------------");
-            int no = 1;
-            for (Order o : list) {
-                System.out.printf("|%6d", no++);
-                System.out.println(o);
-                count += o.getQuantity();
-                total += o.getFlowerCost();
-
-            }
-            System.out.println("________________________________________________________________________________________");
-            System.out.printf("|      | Total     |              |                      | %12d | %11.3f |\n", count, total);
-            System.out.println("________________________________________________________________________________________");
-        } else {
+        boolean parallel = isParallel(list.size());
+        render(list.iterator(), 0, TablePrinter.PAGE_SIZE, totalQuantity(list, parallel), totalCost(list, parallel));
+    }
+
+    /**
+     * Displays the orders placed within a date range, one page at a time,
+     * straight from the date index. The footer totals are read from the sales
+     * rollups instead of being added up from the orders.
+     *
+     * @param startDay The first day of the range (inclusive).
+     * @param endDay The last day of the range (inclusive).
+     */
+    public void displayOrder(LocalDate startDay, LocalDate endDay) {
+        render(streamByDate(startDay, endDay).iterator(), 0, TablePrinter.PAGE_SIZE,
+                rollup.getQuantity(startDay, endDay), rollup.getRevenue(startDay, endDay));
+    }
+
+    /**
+     * Displays every order of the store straight from an iterator, such as
+     * the sorted orders, one page at a time. The footer reads the running
+     * totals of the store instead of adding up the orders.
+     *
+     * @param rows Every order of the store.
+     */
+    public void displayAll(Iterator<Order> rows) {
+        render(rows, 0, TablePrinter.PAGE_SIZE, getTotalQuantity(), getTotalCost());
+    }
+
+    /**
+     * Displays orders straight from an iterator, one page at a time, without
+     * collecting them first. The footer adds up the totals of the orders
+     * displayed.
+     *
+     * @param rows The orders to display.
+     * @param offset The number of orders to skip.
+     * @param pageSize The number of orders of a page, or 0 to display every
+     * order at once.
+     */
+    public void displayOrder(Iterator<Order> rows, int offset, int pageSize) {
+        render(rows, offset, pageSize, -1, 0);
+    }
+
+    /**
+     * Prints the order table through a buffered printer. A negative count
+     * means the totals are added up from the rows printed.
+     */
+    private void render(Iterator<Order> rows, int offset, int pageSize, long count, double total) {
+        long no = TablePrinter.skip(rows, offset) + 1;
+        if (!rows.hasNext()) {
             System.out.println("Order's list empty!");
+            return;
+        }
+        boolean sum = count < 0;
+        if (sum) {
+            count = 0;
         }
+        TablePrinter out = new TablePrinter();
+        out.line("_______________________________________________________________________________________");
+        out.line("|  No. | Order ID  |  Order Date  |    Customer's Name   | Flower Count | Order Total |");
+        out.line("---------------------------------------------------------------------------------------");
+        do {
+            for (int n = 0; rows.hasNext() && (pageSize <= 0 || n < pageSize); n++) {
+                Order o = rows.next();
+                out.row(no++, o);
+                if (sum) {
+                    count += o.getQuantity();
+                    total += o.getFlowerCost();
+                }
+            }
+        } while (rows.hasNext() && out.nextPage());
+        out.line("________________________________________________________________________________________");
+        StringBuilder footer = new StringBuilder("|      | Total     |              |                      | ");
+        RowFormatter.number(footer, count, 12).append(" | ");
+        out.line(RowFormatter.decimal(footer, total, 11).append(" |").toString());
+        out.line("________________________________________________________________________________________");
+        out.flush();
     }
 
     /**
-     * Saves the order list to a file.
+     * Saves the whole order list to an order archive as a full snapshot. Each
+     * partition is rewritten as a single file, merging the files that orders
+     * added to closed partitions were written to. The archive is reopened
+     * afterwards.
      *
-     * @param fileName The name of the file to save the order list to.
+     * @param dir The directory of the order archive.
+     * @param months The number of months of a partition.
      */
-    public void saveData(String fileName) {
-        if (FileIO.saveData(new ArrayList(this), fileName)) {
+    public void saveData(String dir, int months) {
+        final OrderArchive archive = history;
+        final List<Order> orders = new ArrayList<>(this);
+        List<Order> list = orders;
+        if (archive != null) {
+            list = new AbstractList<Order>() {
+                @Override
+                public Order get(int i) {
+                    return i < archive.size() ? archive.get(i) : orders.get(i - archive.size());
+                }
+
+                @Override
+                public int size() {
+                    return archive.size() + orders.size();
+                }
+            };
+        }
+        if (OrderArchive.save(dir, months, list, lastOrderId.get())) {
             System.out.println("Order's list has been saved!");
-            setIsSaved(true);
+            added.clear();
+            openData(dir);
         } else {
             System.out.println("Failure!");
         }
@@ -199,15 +1115,52 @@ public class OrderManagement extends HashSet<Order> {
      * @param fileName The name of the file to load the order list from.
      */
     public void loadData(String fileName) {
-        List<Order> list = FileIO.loadData(fileName);
+        List<Order> list = StoreFile.loadOrders(fileName);
         if (!list.isEmpty()) {
-            if (!this.isEmpty()) {
-                this.clear();
-            }
+            this.clear();
             this.addAll(list);
+            added.clear();
             System.out.println("Order's list has been loaded!");
         } else {
             System.out.println("Empty file!");
         }
     }
+
+    /**
+     * Opens an order archive in read mode. The partition files are
+     * memory-mapped when a query first touches them and an order is only
+     * decoded when it is read, so large order histories open without being
+     * loaded into memory. Orders added afterwards are kept in the collection
+     * until they are written to the archive.
+     *
+     * @param dir The directory of the order archive.
+     */
+    public void openData(String dir) {
+        try {
+            OrderArchive archive = OrderArchive.open(dir);
+            this.clear();
+            added.clear();
+            lastOrderId.set(Math.max(archive.size(), archive.getLastOrderId()));
+            history = archive;
+            rollup.setArchive(archive);
+            System.out.println("Order's list has been opened (" + archive.size() + " orders in "
+                    + archive.getPartitionCount() + " partitions)!");
+        } catch (IOException ex) {
+            System.out.println(ex);
+        }
+    }
+
+    /**
+     * Closes the order archive if there is one.
+     */
+    private void closeHistory() {
+        if (history != null) {
+            try {
+                history.close();
+            } catch (IOException ex) {
+                System.out.println(ex);
+            }
+            history = null;
+        }
+    }
 }
@@ -0,0 +1,368 @@
+package Bussiness;
+
+import Model.Flower;
+import Model.Order;
+import Model.OrderDetail;
+import Tools.Codes;
+import Tools.Days;
+import Tools.OrderArchive;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * This class keeps the quantity and revenue of the orders rolled up by day and
+ * by flower, so sales figures are read without walking the orders. The rollups
+ * are updated as orders are added and removed. The orders of an order archive
+ * are rolled up once, the first time a figure is read after the archive is
+ * opened.
+ * <p>
+ * Days are kept in Fenwick trees over a window of epoch days that grows as
+ * orders outside it arrive, so the sales of any range of days, such as a
+ * month, are the difference of two prefix sums and are read in O(log n).
+ * Orders without a date are counted by flower only, and the rare days too
+ * far from the others to fit the window are added up from a sorted map.
+ * Sales by category are added up from the flowers of the category, so they
+ * follow the flowers' current categories.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class SalesRollup {
+
+    private static final int INITIAL_DAYS = 1 << 10;
+    /**
+     * The widest window of days, about 180 years. Days outside the window
+     * are kept in a sorted map and added up one by one.
+     */
+    private static final int MAX_DAYS = 1 << 16;
+    private int firstDay;
+    private long[] dayQuantity = new long[0];
+    private double[] dayRevenue = new double[0];
+    private long[] quantityTree = new long[1];
+    private double[] revenueTree = new double[1];
+    private final Totals[] flowers = new Totals[Codes.FLOWER_CAPACITY];
+    private final Map<Integer, Totals> otherFlowers = new HashMap<>();
+    private final TreeMap<Integer, Totals> otherDays = new TreeMap<>();
+    private OrderArchive pending;
+
+    /**
+     * The quantity and revenue of a flower.
+     */
+    private static final class Totals {
+
+        private long quantity;
+        private double revenue;
+    }
+
+    /**
+     * Rolls up an order.
+     *
+     * @param o The order.
+     */
+    synchronized void add(Order o) {
+        update(o, 1);
+    }
+
+    /**
+     * Takes an order out of the rollups.
+     *
+     * @param o The order.
+     */
+    synchronized void remove(Order o) {
+        update(o, -1);
+    }
+
+    /**
+     * Empties the rollups.
+     */
+    synchronized void clear() {
+        dayQuantity = new long[0];
+        dayRevenue = new double[0];
+        quantityTree = new long[1];
+        revenueTree = new double[1];
+        Arrays.fill(flowers, null);
+        otherFlowers.clear();
+        otherDays.clear();
+        pending = null;
+    }
+
+    /**
+     * Sets an order archive whose orders are rolled up when a figure is
+     * first read.
+     *
+     * @param archive The order archive.
+     */
+    synchronized void setArchive(OrderArchive archive) {
+        pending = archive;
+    }
+
+    /**
+     * Returns the quantity of flowers ordered within a date range.
+     *
+     * @param startDay The first day of the range (inclusive).
+     * @param endDay The last day of the range (inclusive).
+     * @return The quantity of flowers.
+     */
+    public long getQuantity(LocalDate startDay, LocalDate endDay) {
+        return getQuantity(Days.of(startDay), Days.of(endDay));
+    }
+
+    /**
+     * Returns the quantity of flowers ordered within a range of epoch days.
+     *
+     * @param startDay The first epoch day of the range (inclusive).
+     * @param endDay The last epoch day of the range (inclusive).
+     * @return The quantity of flowers.
+     */
+    public synchronized long getQuantity(int startDay, int endDay) {
+        fold();
+        long quantity = 0;
+        if (startDay <= endDay) {
+            for (Totals t : otherDays.subMap(startDay, true, endDay, true).values()) {
+                quantity += t.quantity;
+            }
+        }
+        int from = Math.max(startDay, firstDay) - firstDay;
+        int to = (int) Math.min(endDay, (long) firstDay + dayQuantity.length - 1) - firstDay;
+        if (from > to) {
+            return quantity;
+        }
+        return quantity + prefix(quantityTree, to) - prefix(quantityTree, from - 1);
+    }
+
+    /**
+     * Returns the revenue of the orders placed within a date range.
+     *
+     * @param startDay The first day of the range (inclusive).
+     * @param endDay The last day of the range (inclusive).
+     * @return The revenue.
+     */
+    public double getRevenue(LocalDate startDay, LocalDate endDay) {
+        return getRevenue(Days.of(startDay), Days.of(endDay));
+    }
+
+    /**
+     * Returns the revenue of the orders placed within a range of epoch days.
+     *
+     * @param startDay The first epoch day of the range (inclusive).
+     * @param endDay The last epoch day of the range (inclusive).
+     * @return The revenue.
+     */
+    public synchronized double getRevenue(int startDay, int endDay) {
+        fold();
+        double revenue = 0;
+        if (startDay <= endDay) {
+            for (Totals t : otherDays.subMap(startDay, true, endDay, true).values()) {
+                revenue += t.revenue;
+            }
+        }
+        int from = Math.max(startDay, firstDay) - firstDay;
+        int to = (int) Math.min(endDay, (long) firstDay + dayRevenue.length - 1) - firstDay;
+        if (from > to) {
+            return revenue;
+        }
+        return revenue + prefix(revenueTree, to) - prefix(revenueTree, from - 1);
+    }
+
+    /**
+     * Returns the quantity of flowers ordered in a month.
+     *
+     * @param month The month.
+     * @return The quantity of flowers.
+     */
+    public long getQuantity(YearMonth month) {
+        return getQuantity(month.atDay(1), month.atEndOfMonth());
+    }
+
+    /**
+     * Returns the revenue of the orders placed in a month.
+     *
+     * @param month The month.
+     * @return The revenue.
+     */
+    public double getRevenue(YearMonth month) {
+        return getRevenue(month.atDay(1), month.atEndOfMonth());
+    }
+
+    /**
+     * Returns the quantity of a flower over every order.
+     *
+     * @param flowerId The flower ID.
+     * @return The quantity of the flower.
+     */
+    public synchronized long getFlowerQuantity(String flowerId) {
+        fold();
+        Totals t = totals(Codes.flowerCode(flowerId), false);
+        return t == null ? 0 : t.quantity;
+    }
+
+    /**
+     * Returns the revenue of a flower over every order.
+     *
+     * @param flowerId The flower ID.
+     * @return The revenue of the flower.
+     */
+    public synchronized double getFlowerRevenue(String flowerId) {
+        fold();
+        Totals t = totals(Codes.flowerCode(flowerId), false);
+        return t == null ? 0 : t.revenue;
+    }
+
+    /**
+     * Returns the quantity of the flowers of a category over every order.
+     *
+     * @param category The category, compared without regard to case.
+     * @param flowerList The flowers, whose category index is looked up.
+     * @return The quantity of the flowers of the category.
+     */
+    public long getCategoryQuantity(String category, FlowerManagement flowerList) {
+        long quantity = 0;
+        for (Flower f : flowerList.findByCategory(category)) {
+            quantity += getFlowerQuantity(f.getFlowerId());
+        }
+        return quantity;
+    }
+
+    /**
+     * Returns the revenue of the flowers of a category over every order.
+     *
+     * @param category The category, compared without regard to case.
+     * @param flowerList The flowers, whose category index is looked up.
+     * @return The revenue of the flowers of the category.
+     */
+    public double getCategoryRevenue(String category, FlowerManagement flowerList) {
+        double revenue = 0;
+        for (Flower f : flowerList.findByCategory(category)) {
+            revenue += getFlowerRevenue(f.getFlowerId());
+        }
+        return revenue;
+    }
+
+    /**
+     * Rolls up the orders of the archive set last, if they have not been
+     * rolled up yet.
+     */
+    private void fold() {
+        if (pending != null) {
+            OrderArchive archive = pending;
+            pending = null;
+            for (int i = 0; i < archive.size(); i++) {
+                update(archive.get(i), 1);
+            }
+        }
+    }
+
+    private void update(Order o, int sign) {
+        int day = o.getOrderDay();
+        int i = day == Days.NONE ? -1 : slot(day);
+        if (i >= 0) {
+            dayQuantity[i] += sign * o.getQuantity();
+            dayRevenue[i] += sign * o.getFlowerCost();
+            for (int j = i + 1; j < quantityTree.length; j += j & -j) {
+                quantityTree[j] += sign * o.getQuantity();
+                revenueTree[j] += sign * o.getFlowerCost();
+            }
+        } else if (day != Days.NONE) {
+            Totals t = otherDays.computeIfAbsent(day, k -> new Totals());
+            t.quantity += sign * o.getQuantity();
+            t.revenue += sign * o.getFlowerCost();
+        }
+        for (OrderDetail d : o.getOrderDetail()) {
+            Totals t = totals(d.getFlowerCode(), true);
+            t.quantity += sign * d.getQuantity();
+            t.revenue += sign * d.getFlowerCost();
+        }
+    }
+
+    /**
+     * Returns the totals of a flower code.
+     */
+    private Totals totals(int code, boolean create) {
+        if (code == Codes.NULL) {
+            return null;
+        }
+        Totals t = code >= 0 && code < flowers.length ? flowers[code] : otherFlowers.get(code);
+        if (t == null && create) {
+            t = new Totals();
+            if (code >= 0 && code < flowers.length) {
+                flowers[code] = t;
+            } else {
+                otherFlowers.put(code, t);
+            }
+        }
+        return t;
+    }
+
+    /**
+     * Returns the slot of an epoch day, widening the window of days first if
+     * the day is outside it. The window at least doubles each time, so
+     * rebuilding the trees costs O(1) per day on average.
+     *
+     * @return The slot, or -1 if the window would grow beyond MAX_DAYS.
+     */
+    private int slot(int day) {
+        int length = dayQuantity.length;
+        if (length == 0) {
+            firstDay = day - INITIAL_DAYS / 2;
+            resize(firstDay, INITIAL_DAYS);
+        } else if (day < firstDay || day - firstDay >= length) {
+            long first = firstDay;
+            long end = (long) firstDay + length;
+            while (day < first || day >= end) {
+                if (day < first) {
+                    first -= end - first;
+                } else {
+                    end += end - first;
+                }
+            }
+            if (end - first > MAX_DAYS) {
+                return -1;
+            }
+            resize((int) first, (int) (end - first));
+        }
+        return day - firstDay;
+    }
+
+    /**
+     * Moves the days to a new window and rebuilds the trees in linear time.
+     */
+    private void resize(int first, int length) {
+        long[] quantity = new long[length];
+        double[] revenue = new double[length];
+        System.arraycopy(dayQuantity, 0, quantity, firstDay - first, dayQuantity.length);
+        System.arraycopy(dayRevenue, 0, revenue, firstDay - first, dayRevenue.length);
+        quantityTree = new long[length + 1];
+        revenueTree = new double[length + 1];
+        for (int i = 1; i <= length; i++) {
+            quantityTree[i] += quantity[i - 1];
+            revenueTree[i] += revenue[i - 1];
+            int j = i + (i & -i);
+            if (j <= length) {
+                quantityTree[j] += quantityTree[i];
+                revenueTree[j] += revenueTree[i];
+            }
+        }
+        firstDay = first;
+        dayQuantity = quantity;
+        dayRevenue = revenue;
+    }
+
+    private static long prefix(long[] tree, int i) {
+        long sum = 0;
+        for (int j = i + 1; j > 0; j -= j & -j) {
+            sum += tree[j];
+        }
+        return sum;
+    }
+
+    private static double prefix(double[] tree, int i) {
+        double sum = 0;
+        for (int j = i + 1; j > 0; j -= j & -j) {
+            sum += tree[j];
+        }
+        return sum;
+    }
+}
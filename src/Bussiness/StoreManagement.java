@@ -1,12 +1,39 @@
 package Bussiness;
 
 import Model.Flower;
+import Model.Order;
+import Model.OrderDetail;
 import Tools.InputFormatter;
-import java.text.ParseException;
+import Tools.Journal;
+import Tools.OrderArchive;
+import Tools.StoreFile;
+import Tools.Validator;
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * The StoreManagement class handles operations related to managing flowers and orders.
+ * <p>
+ * Every change is appended to a journal as it is made. The journal is folded
+ * into the data files on a background thread, when it grows past a threshold,
+ * when the user saves, and every few seconds as an autosave, set with
+ * -Dstore.autosaveSeconds (0 turns the autosave off). A compaction only takes
+ * the changes and a copy of the flower list under the store's write lock;
+ * flowers are replaced rather than changed and orders are only added, so the
+ * copies are consistent snapshots and the files are written without holding
+ * up the console or the API.
+ * <p>
+ * The data files are kept in src\file, or in the directory set with
+ * -Dstore.dir.
  *
  * @author Nguyen Truong Tho
  */
@@ -14,10 +41,70 @@ public class StoreManagement {
 
     private FlowerManagement flowerSet = new FlowerManagement();
     private OrderManagement orderSet = new OrderManagement();
-    private final String flowerFormat = "Flower Id must be in FXXX (with X is digit) format!";
-    private final String flowerRegex = "^[fF][0-9]{3,3}$";
-    private final String flowerFile = "src\\file\\flowers.dat";
-    private final String orderFile = "src\\file\\orders.dat";
+    private final String flowerFile = dataFile("flowers.dat");
+    private final String orderFile = dataFile("orders.dat");
+    private final String orderDir = dataFile("orders");
+    private final String journalFile = dataFile("store.journal");
+    private final int partitionMonths = Math.max(1, Integer.getInteger("store.partitionMonths", 1));
+    private final long compactThreshold = 1024 * 1024;
+    private final int segmentLimit = 32;
+    private final int autosaveSeconds = Math.max(0, Integer.getInteger("store.autosaveSeconds", 60));
+    private final Journal journal = new Journal(journalFile);
+    private final ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "journal-compactor");
+        t.setDaemon(true);
+        return t;
+    });
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean isLoaded = false;
+
+    /**
+     * Constructor for the StoreManagement class. Changes left in the journal
+     * by a previous run that ended before they were folded into the data files
+     * are recovered by loading the data.
+     */
+    public StoreManagement() {
+        flowerSet.setJournal(journal);
+        orderSet.setJournal(journal);
+        flowerSet.setLock(lock.readLock());
+        orderSet.setLock(lock.readLock());
+        if (journal.hasEntries()) {
+            System.out.println("Recovering changes from the journal...");
+            loadData();
+        }
+        if (autosaveSeconds > 0) {
+            compactor.scheduleWithFixedDelay(this::autosave, autosaveSeconds, autosaveSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Returns the name of a data file, in the directory set with -Dstore.dir
+     * or in src\file.
+     */
+    private static String dataFile(String name) {
+        String dir = System.getProperty("store.dir");
+        return dir == null ? "src\\file\\" + name : new File(dir, name).getPath();
+    }
+
+    /**
+     * Forces the journal to disk and folds it into the data files if anything
+     * has changed since the last compaction. Runs on the compactor thread, so
+     * the fold is run in place and its result checked; changes that could not
+     * be written are kept and written by the next autosave.
+     */
+    private void autosave() {
+        try {
+            if (isLoaded && (flowerSet.hasChanges() || orderSet.hasChanges())) {
+                journal.sync();
+                Callable<Boolean> fold = takeChanges();
+                if (fold != null && !fold.call()) {
+                    System.out.println("Autosave has failed, it will be retried in " + autosaveSeconds + " second(s)!");
+                }
+            }
+        } catch (Exception ex) {
+            System.out.println(ex);
+        }
+    }
 
     /**
      * Adds a flower to the collection.
@@ -27,6 +114,7 @@ public class StoreManagement {
     public void addFlower() throws Exception {
         System.out.println("==========ADD FLOWER==========");
         flowerSet.addFlower();
+        compactIfNeeded();
         if (InputFormatter.getBoolean("Do you want to add more flower? (Y/N): ")) {
             addFlower();
         }
@@ -62,6 +150,7 @@ public class StoreManagement {
             }
             if (index != 0) {
                 flowerSet.updateFlower(list.get(index - 1));
+                compactIfNeeded();
             }
         }
     }
@@ -71,11 +160,12 @@ public class StoreManagement {
      */
     public void deleteFlower() {
         System.out.println("==========DELETE FLOWER==========");
-        String flowerId = InputFormatter.getString("Enter Flower's Id (FXXX): ", flowerFormat, flowerRegex).toUpperCase();
+        String flowerId = InputFormatter.getString("Enter Flower's Id (FXXX): ", Validator.FLOWER_ID_FORMAT, Validator::isFlowerId).toUpperCase();
         if (flowerSet.isExist(flowerId)) {
             if (!orderSet.isInOrder(flowerSet.getFlowerById(flowerId))) {
                 if (InputFormatter.getBoolean("Do you want to delete this flower? (Y/N): ")) {
                     flowerSet.removeFlower(flowerSet.getFlowerById(flowerId));
+                    compactIfNeeded();
                     System.out.println("Delete success!");
                 } else {
                     System.out.println("Delete failure!");
@@ -97,6 +187,7 @@ public class StoreManagement {
         System.out.println("==========ADD ORDER==========");
         if (!flowerSet.isEmpty()) {
             orderSet.addOrder(flowerSet);
+            compactIfNeeded();
             if (InputFormatter.getBoolean("Do you want to add more order? (Y/N): ")) {
                 addOrder();
             }
@@ -107,13 +198,12 @@ public class StoreManagement {
 
     /**
      * Displays the orders in the collection.
-     *
-     * @throws ParseException If an error occurs during the order display
-     * process.
      */
-    public void displayOrder() throws ParseException {
+    public void displayOrder() {
         System.out.println("==========DISPLAY ORDER==========");
-        orderSet.displayOrder(orderSet.showOrder());
+        LocalDate startDay = InputFormatter.getDate("Enter Start Day: ");
+        LocalDate endDay = InputFormatter.getDateAfter("Enter End Day: ", startDay);
+        orderSet.displayOrder(startDay, endDay);
         InputFormatter.pressEnterKey();
     }
 
@@ -127,40 +217,629 @@ public class StoreManagement {
         System.out.printf("SORT BY:\n1. ORDER ID\n2. ORDER DATE\n3. CUSTOMER NAME\n4. ORDER TOTAL\n5. BACK TO MENU\n");
         int field = InputFormatter.getInt("Enter your choice: ", "Choose from 1 to 4, please!", 1, 5);
         if (field != 5) {
-            orderSet.displayOrder(orderSet.sortByField(field));
+            orderSet.displayAll(orderSet.sortByField(field));
             InputFormatter.pressEnterKey();
         }
     }
 
     /**
-     * Saves the flower and order data to files.
+     * Saves the changes. Every change is already appended to the journal, so
+     * saving forces the journal to disk, then a compaction writes only the
+     * changed flowers and the new orders to the data files and is waited for.
+     * A file without changes is not touched.
      */
     public void saveData() {
         System.out.println("==========SAVE DATA==========");
-        flowerSet.saveData(flowerFile);
-        orderSet.saveData(orderFile);
+        journal.sync();
+        if (!flowerSet.hasChanges() && !orderSet.hasChanges()) {
+            System.out.println("Nothing has changed since the last save!");
+            return;
+        }
+        Future<Boolean> fold = compact();
+        try {
+            if (fold == null) {
+                System.out.println(journal.getEntries() + " change(s) have been saved to the journal!");
+            } else if (fold.get()) {
+                System.out.println("Changes have been saved!");
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            System.out.println(ex.getCause());
+        }
     }
 
     /**
-     * Loads flower and order data from files.
+     * Saves every flower and order as a full snapshot, replacing the data
+     * files and emptying the journal. Each partition of the order archive is
+     * rewritten as a single file. The snapshot is written on the compactor
+     * thread under the write lock, so no compaction or change runs meanwhile.
+     */
+    public void saveSnapshot() {
+        System.out.println("==========SAVE FULL SNAPSHOT==========");
+        if (!isLoaded && (new File(flowerFile).exists() || OrderArchive.exists(orderDir))
+                && !InputFormatter.getBoolean("Data has not been loaded! Do you want to overwrite the data files? (Y/N): ")) {
+            return;
+        }
+        runExclusive(() -> {
+            flowerSet.saveData(flowerFile);
+            orderSet.saveData(orderDir, partitionMonths);
+            journal.truncate();
+        });
+    }
+
+    /**
+     * Loads flower and order data from files, then replays the changes from
+     * the journal. The orders are opened from the order archive without being
+     * loaded; an order file left by an older version is migrated to the
+     * archive first. The data is loaded on the compactor thread under the
+     * write lock, and is only marked as loaded once the journal has been
+     * replayed, so a compaction never takes a collection half loaded.
      */
     public void loadData() {
         System.out.println("==========LOAD DATA==========");
+        runExclusive(this::load);
+    }
+
+    /**
+     * Loads the data files and replays the journal.
+     */
+    private void load() {
         flowerSet.loadData(flowerFile);
-        orderSet.loadData(orderFile);
+        if (!OrderArchive.exists(orderDir) && new File(orderFile).exists()) {
+            System.out.println("Migrating the order file to the order archive...");
+            orderSet.loadData(orderFile);
+            orderSet.saveData(orderDir, partitionMonths);
+        } else {
+            orderSet.openData(orderDir);
+        }
+        int count = journal.replay(new Journal.Handler() {
+            @Override
+            public void addFlower(Flower f) {
+                flowerSet.add(f);
+                flowerSet.markChanged(f);
+            }
+
+            @Override
+            public void updateFlower(Flower f) {
+                flowerSet.add(f);
+                flowerSet.markChanged(f);
+            }
+
+            @Override
+            public void deleteFlower(String flowerId) {
+                Flower f = flowerSet.getFlowerById(flowerId);
+                if (f != null) {
+                    flowerSet.remove(f);
+                }
+                flowerSet.markDeleted(flowerId);
+            }
+
+            @Override
+            public void addOrder(Order o) {
+                if (!orderSet.hasOrder(o.getOrderId())) {
+                    orderSet.add(o);
+                    orderSet.markAdded(o);
+                }
+            }
+        });
+        isLoaded = true;
+        // the replayed changes are marked again, so a rotated journal left
+        // by a compaction that did not finish is put back to be rotated again
+        journal.restoreRotated();
+        if (count > 0) {
+            System.out.println(count + " change(s) have been replayed from the journal!");
+            compact();
+        }
+    }
+
+    /**
+     * Starts a compaction once the journal has grown past its threshold.
+     */
+    private void compactIfNeeded() {
+        if (journal.size() >= compactThreshold) {
+            compact();
+        }
     }
 
     /**
-     * Quits the program.
+     * Folds the journal into the data files on a background thread. The
+     * journal is rotated and the changes are taken on the caller's thread, so
+     * changes made while the files are written go to the new journal. The
+     * changes are appended to the data files as a new segment; a flower file
+     * that is not in the current binary format yet or has too many segments
+     * is rewritten in full instead. New orders are added to the partitions of the
+     * order archive they belong to. Nothing is compacted before the data files have been
+     * loaded, since the collections would not hold the full data yet. The
+     * journal is rotated under the write lock of the store, so no change is
+     * recorded in the rotated journal but taken after it. Every change, from
+     * the console, the API or a bulk import, is made, marked and recorded
+     * under the read lock of the store, so a change is either taken with the
+     * rotated journal or recorded in the new one.
+     * <p>
+     * Only a copy of the flower list is taken under the lock, when flowers
+     * have changed; whether the flower file is appended to or rewritten is
+     * decided on the background thread, so the lock is never held while a
+     * file is read or written.
+     *
+     * @return The result of the compaction, true if the data files have been
+     * written, or null if no compaction has been started.
+     */
+    private Future<Boolean> compact() {
+        Callable<Boolean> fold = takeChanges();
+        return fold == null ? null : compactor.submit(fold);
+    }
+
+    /**
+     * Rotates the journal and takes the changes under the write lock of the
+     * store.
+     *
+     * @return The task folding the changes into the data files, or null if
+     * the data has not been loaded or the journal cannot be rotated.
+     */
+    private Callable<Boolean> takeChanges() {
+        final List<Flower> changed;
+        final List<String> deleted;
+        final List<Order> added;
+        final List<Flower> flowers;
+        final long lastOrderId;
+        lock.writeLock().lock();
+        try {
+            if (!isLoaded || !journal.rotate()) {
+                return null;
+            }
+            changed = flowerSet.takeChanged();
+            deleted = flowerSet.takeDeleted();
+            added = orderSet.takeAdded();
+            lastOrderId = lastOrderId(added);
+            flowers = changed.isEmpty() && deleted.isEmpty() ? null : new ArrayList<>(flowerSet);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return () -> fold(changed, deleted, added, flowers, lastOrderId);
+    }
+
+    /**
+     * Returns the highest number of the given orders, which is the last order
+     * ID written to the archive with them.
+     *
+     * @param orders The orders.
+     * @return The highest order number, or 0 if there are no orders.
+     */
+    private static long lastOrderId(List<Order> orders) {
+        long last = 0;
+        for (Order o : orders) {
+            last = Math.max(last, OrderManagement.orderNumber(o.getOrderId()));
+        }
+        return last;
+    }
+
+    /**
+     * Writes the changes taken from the rotated journal to the data files,
+     * then deletes the rotated journal. If a file cannot be written, the
+     * changes are marked again and the rotated journal is put back in front
+     * of the current one, so the next compaction writes them again and
+     * nothing is lost meanwhile.
+     *
+     * @param flowers A copy of every flower if the flower file may need to be
+     * rewritten, or null if no flower has changed.
+     * @return True if the data files have been written, false otherwise.
+     */
+    private boolean fold(List<Flower> changed, List<String> deleted, List<Order> added, List<Flower> flowers, long lastOrderId) {
+        boolean check = false;
+        try {
+            int flowerSegments = flowers == null ? 0 : StoreFile.segmentCount(flowerFile);
+            check = flowers != null && (flowerSegments <= 0 || flowerSegments >= segmentLimit)
+                    ? StoreFile.saveFlowers(flowers, flowerFile)
+                    : StoreFile.appendFlowers(changed, deleted, flowerFile);
+            check &= added.isEmpty() || OrderArchive.append(orderDir, partitionMonths, added, lastOrderId);
+        } finally {
+            if (check) {
+                journal.deleteRotated();
+            } else {
+                flowerSet.restoreChanges(changed, deleted);
+                orderSet.restoreAdded(added);
+                journal.restoreRotated();
+                System.out.println("The changes could not be written to the data files, they are kept in the journal!");
+            }
+        }
+        return check;
+    }
+
+    /**
+     * Runs a task on the compactor thread under the write lock of the store
+     * and waits for it, so it runs after the compactions already started and
+     * no change is made while it runs.
+     *
+     * @param task The task.
+     */
+    private void runExclusive(Runnable task) {
+        try {
+            compactor.submit(() -> {
+                lock.writeLock().lock();
+                try {
+                    task.run();
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            System.out.println(ex.getCause());
+        }
+    }
+
+    /**
+     * Imports flowers from a CSV file, then saves the changes. The data files
+     * are loaded first if they have not been loaded yet.
+     *
+     * @param fileName The name of the CSV file.
+     */
+    public void importFlowers(String fileName) {
+        System.out.println("==========IMPORT FLOWERS==========");
+        if (!isLoaded) {
+            loadData();
+        }
+        BulkImport bulk = new BulkImport(flowerSet, orderSet);
+        long start = System.nanoTime();
+        if (bulk.importFlowers(fileName)) {
+            System.out.printf("%d flower(s) have been imported in %d ms!\n", bulk.getImported(), (System.nanoTime() - start) / 1000000);
+        }
+        saveData();
+    }
+
+    /**
+     * Imports orders from a CSV file, then saves the changes. The data files
+     * are loaded first if they have not been loaded yet.
+     *
+     * @param fileName The name of the CSV file.
+     */
+    public void importOrders(String fileName) {
+        System.out.println("==========IMPORT ORDERS==========");
+        if (!isLoaded) {
+            loadData();
+        }
+        BulkImport bulk = new BulkImport(flowerSet, orderSet);
+        long start = System.nanoTime();
+        if (bulk.importOrders(fileName)) {
+            System.out.printf("%d order(s) have been imported in %d ms!\n", bulk.getImported(), (System.nanoTime() - start) / 1000000);
+        }
+        saveData();
+    }
+
+    /**
+     * Checks if the data files have been loaded.
+     *
+     * @return True if the data has been loaded, false otherwise.
+     */
+    public boolean isLoaded() {
+        return isLoaded;
+    }
+
+    /**
+     * Retrieves the flower with the specified ID without prompting
+     * the user. The methods below are used by the API server and may be
+     * called from many threads at once. Queries take no lock. Changes share
+     * the read lock of the store, so they run in parallel; deleting a flower
+     * takes the write lock, so that no order is added for it meanwhile, and
+     * so does a compaction, so that no change is half recorded while the
+     * journal is rotated. Flowers are immutable, so the flowers of the
+     * collection are returned as they are.
+     *
+     * @param flowerId The flower ID to search for.
+     * @return The flower, or null if not found.
+     */
+    public Flower getFlower(String flowerId) {
+        return flowerSet.getFlowerById(flowerId);
+    }
+
+    /**
+     * Finds flowers by name without prompting the user.
+     *
+     * @param name The name to search for, or null for every flower.
+     * @return The flowers found.
+     */
+    public List<Flower> findFlowers(String name) {
+        return name == null ? new ArrayList<>(flowerSet) : flowerSet.findByName(name);
+    }
+
+    /**
+     * Finds flowers by category and unit price without prompting the user.
+     *
+     * @param category The category to search for, or null for every category.
+     * @param minPrice The lowest unit price (inclusive), or null.
+     * @param maxPrice The highest unit price (inclusive), or null.
+     * @return The flowers found, by unit price.
+     */
+    public List<Flower> findFlowers(String category, Double minPrice, Double maxPrice) {
+        double min = minPrice == null ? 0 : minPrice;
+        double max = maxPrice == null ? Double.MAX_VALUE : maxPrice;
+        return category == null ? flowerSet.findByPrice(min, max) : flowerSet.findByCategory(category, min, max);
+    }
+
+    /**
+     * Adds a flower without prompting the user.
+     *
+     * @param flowerId The ID of the flower.
+     * @param name The name of the flower.
+     * @param importDate The date the flower was imported.
+     * @param unitPrice The price per unit of the flower.
+     * @param category The category of the flower.
+     * @return The added flower.
+     * @throws IllegalArgumentException If a value is not in the right format.
+     * @throws IllegalStateException If the flower already exists.
+     */
+    public Flower addFlower(String flowerId, String name, LocalDate importDate, double unitPrice, String category) {
+        if (!Validator.isFlowerId(flowerId)) {
+            throw new IllegalArgumentException(Validator.FLOWER_ID_FORMAT);
+        }
+        if (name == null) {
+            throw new IllegalArgumentException(Validator.FLOWER_NAME_FORMAT);
+        }
+        if (importDate == null) {
+            throw new IllegalArgumentException(Validator.DATE_FORMAT);
+        }
+        if (category == null || category.isEmpty()) {
+            throw new IllegalArgumentException("The category field must not be empty.");
+        }
+        checkFlower(name, unitPrice);
+        Flower f = new Flower(flowerId.toUpperCase(), name, importDate, unitPrice, category);
+        lock.readLock().lock();
+        try {
+            if (!flowerSet.addFlower(f)) {
+                throw new IllegalStateException("The flower already exist!");
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        compactIfNeeded();
+        return f;
+    }
+
+    /**
+     * Updates a flower without prompting the user. A null value leaves the
+     * field unchanged.
+     *
+     * @param flowerId The ID of the flower to update.
+     * @param name The new name, or null.
+     * @param importDate The new import date, or null.
+     * @param unitPrice The new unit price, or null.
+     * @param category The new category, or null.
+     * @return The updated flower, or null if the flower does not
+     * exist.
+     * @throws IllegalArgumentException If a value is not in the right format.
+     */
+    public Flower updateFlower(String flowerId, String name, LocalDate importDate, Double unitPrice, String category) {
+        checkFlower(name, unitPrice);
+        Flower f;
+        lock.readLock().lock();
+        try {
+            f = flowerSet.getFlowerById(flowerId);
+            if (f != null) {
+                f = flowerSet.updateFlower(f, name, importDate, unitPrice, category);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        compactIfNeeded();
+        return f;
+    }
+
+    /**
+     * Deletes a flower without prompting the user.
+     *
+     * @param flowerId The ID of the flower to delete.
+     * @return True if the flower has been deleted, false if it does not
+     * exist.
+     * @throws IllegalStateException If the flower is being ordered.
+     */
+    public boolean deleteFlower(String flowerId) {
+        lock.writeLock().lock();
+        try {
+            Flower f = flowerSet.getFlowerById(flowerId);
+            if (f == null) {
+                return false;
+            }
+            if (orderSet.isInOrder(f)) {
+                throw new IllegalStateException("Cannot be deleted because this flower is being ordered!");
+            }
+            flowerSet.removeFlower(f);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        compactIfNeeded();
+        return true;
+    }
+
+    /**
+     * Adds an order without prompting the user. The cost of each detail is
+     * computed from the current unit price of its flower.
+     *
+     * @param orderDate The date the order was placed.
+     * @param customerName The name of the customer who placed the order.
+     * @param flowerIds The IDs of the ordered flowers.
+     * @param quantities The quantity of each ordered flower.
+     * @return The added order.
+     * @throws IllegalArgumentException If a value is not in the right format
+     * or a flower does not exist.
+     */
+    public Order addOrder(LocalDate orderDate, String customerName, List<String> flowerIds, List<Integer> quantities) {
+        if (orderDate == null) {
+            throw new IllegalArgumentException(Validator.DATE_FORMAT);
+        }
+        if (!Validator.isCustomerName(customerName)) {
+            throw new IllegalArgumentException(Validator.CUSTOMER_NAME_FORMAT);
+        }
+        if (flowerIds.isEmpty() || flowerIds.size() != quantities.size()) {
+            throw new IllegalArgumentException("An order must have at least one flower and a quantity for each flower!");
+        }
+        Order o;
+        lock.readLock().lock();
+        try {
+            List<OrderDetail> orderDetail = new ArrayList<>(flowerIds.size());
+            for (int i = 0; i < flowerIds.size(); i++) {
+                String flowerId = flowerIds.get(i);
+                Flower f = flowerId == null ? null : flowerSet.getFlowerById(flowerId);
+                if (f == null) {
+                    throw new IllegalArgumentException("The flower " + flowerId + " does not exist!");
+                }
+                int quantity = quantities.get(i);
+                if (quantity < 1) {
+                    throw new IllegalArgumentException("Quantity must be greater than 0!");
+                }
+                orderDetail.add(new OrderDetail(OrderManagement.formatId(i + 1), f.getFlowerId(), quantity, f.getUnitPrice() * quantity));
+            }
+            o = orderSet.addOrder(orderDate, customerName, orderDetail);
+        } finally {
+            lock.readLock().unlock();
+        }
+        compactIfNeeded();
+        return o;
+    }
+
+    /**
+     * Retrieves one page of the orders placed within a date range without
+     * prompting the user.
+     *
+     * @param startDay The first day of the range (inclusive).
+     * @param endDay The last day of the range (inclusive).
+     * @param offset The number of orders to skip.
+     * @param limit The maximum number of orders to return.
+     * @return The page of orders, in order date order.
+     */
+    public List<Order> findOrders(LocalDate startDay, LocalDate endDay, int offset, int limit) {
+        return orderSet.findByDate(startDay, endDay, offset, limit);
+    }
+
+    /**
+     * Retrieves one page of a customer's orders without prompting the user.
+     *
+     * @param customerName The customer name.
+     * @param offset The number of orders to skip.
+     * @param limit The maximum number of orders to return.
+     * @return The page of orders, oldest first.
+     */
+    public List<Order> findCustomerOrders(String customerName, int offset, int limit) {
+        List<Order> list = orderSet.getOrdersByCustomer(customerName);
+        int from = Math.min(offset, list.size());
+        return list.subList(from, from + Math.min(limit, list.size() - from));
+    }
+
+    /**
+     * Returns the number of orders of a customer.
+     *
+     * @param customerName The customer name.
+     * @return The number of orders.
+     */
+    public int getCustomerOrderCount(String customerName) {
+        return orderSet.getCustomerOrderCount(customerName);
+    }
+
+    /**
+     * Returns the total quantity of flowers a customer has ordered.
+     *
+     * @param customerName The customer name.
+     * @return The total quantity of flowers.
+     */
+    public long getCustomerQuantity(String customerName) {
+        return orderSet.getCustomerQuantity(customerName);
+    }
+
+    /**
+     * Returns the total a customer has spent.
+     *
+     * @param customerName The customer name.
+     * @return The total cost of the customer's orders.
+     */
+    public double getCustomerSpend(String customerName) {
+        return orderSet.getCustomerSpend(customerName);
+    }
+
+    /**
+     * Returns the sales rollups of the orders.
+     *
+     * @return The sales rollups.
+     */
+    public SalesRollup getSales() {
+        return orderSet.getRollup();
+    }
+
+    /**
+     * Returns the quantity of the flowers of a category over every order.
+     *
+     * @param category The category.
+     * @return The quantity of the flowers of the category.
+     */
+    public long getCategoryQuantity(String category) {
+        return orderSet.getRollup().getCategoryQuantity(category, flowerSet);
+    }
+
+    /**
+     * Returns the revenue of the flowers of a category over every order.
+     *
+     * @param category The category.
+     * @return The revenue of the flowers of the category.
+     */
+    public double getCategoryRevenue(String category) {
+        return orderSet.getRollup().getCategoryRevenue(category, flowerSet);
+    }
+
+    /**
+     * Retrieves one page of the orders sorted by a field without prompting the
+     * user.
+     *
+     * @param field The field to sort by (1. order ID, 2. order date, 3.
+     * customer name, 4. order total).
+     * @param descending True to sort in descending order, false otherwise.
+     * @param offset The number of orders to skip.
+     * @param limit The maximum number of orders to return.
+     * @return The page of sorted orders.
+     */
+    public List<Order> sortOrders(int field, boolean descending, int offset, int limit) {
+        return orderSet.sort(field, descending, offset, limit);
+    }
+
+    /**
+     * Checks the values of a flower that may be left unchanged.
+     */
+    private void checkFlower(String name, Double unitPrice) {
+        if (name != null && !Validator.isFlowerName(name)) {
+            throw new IllegalArgumentException(Validator.FLOWER_NAME_FORMAT);
+        }
+        if (unitPrice != null && !(unitPrice >= 0)) {
+            throw new IllegalArgumentException("The unit price field must be a positive number");
+        }
+    }
+
+    /**
+     * Forces the journal to disk and waits for the background compaction to
+     * finish.
+     */
+    public void close() {
+        journal.sync();
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        journal.close();
+    }
+
+    /**
+     * Quits the program. Changes not written to the data files yet are saved
+     * first. They cannot be discarded instead: the autosave may already have
+     * written some of them, so discarding would keep only part of the changes
+     * since the last save.
      */
     public void quitProgram() {
         System.out.println("==========QUIT PROGRAM==========");
         if (InputFormatter.getBoolean("Do you want to quit? (Y/N): ")) {
-            if (!flowerSet.isIsSaved() && !orderSet.isIsSaved()) {
-                if (InputFormatter.getBoolean("Data has been changed! Do you to save before exit? (Y/N): ")) {
-                    saveData();
-                }
+            if (flowerSet.hasChanges() || orderSet.hasChanges()) {
+                saveData();
             }
+            close();
             System.out.println("Goodbye, have a nice day!");
             System.exit(0);
         } else {
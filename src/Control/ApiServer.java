@@ -0,0 +1,522 @@
+package Control;
+
+import Bussiness.SalesRollup;
+import Bussiness.StoreManagement;
+import Model.Flower;
+import Model.Order;
+import Model.OrderDetail;
+import Tools.Days;
+import Tools.Json;
+import Tools.RowFormatter;
+import Tools.Validator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class serves the store over HTTP, so that many clients can share one
+ * store. Requests and responses are JSON, and dates are dd/mm/yyyy strings.
+ * <pre>
+ * GET    /flowers?name=NAME        find flowers by name (every flower without name)
+ * GET    /flowers?category=C&amp;minPrice=P&amp;maxPrice=P
+ *                                  find flowers by category and price band
+ * GET    /flowers/FXXX             get a flower
+ * POST   /flowers                  add a flower
+ * PUT    /flowers/FXXX             update the fields present in the body
+ * DELETE /flowers/FXXX             delete a flower
+ * POST   /orders                   add an order: {"orderDate", "customerName",
+ *                                  "details": [{"flowerId", "quantity"}]}
+ * GET    /orders?from=D&amp;to=D       orders placed within a date range
+ * GET    /orders?sort=FIELD&amp;desc=true orders sorted by id, date, customer or total
+ * GET    /customers/NAME           a customer's order count, quantity, spend and orders
+ * GET    /sales?from=D&amp;to=D        quantity and revenue within a date range
+ * GET    /sales?flowerId=FXXX      quantity and revenue of a flower
+ * GET    /sales?category=CATEGORY  quantity and revenue of a category
+ * </pre>
+ * The order listings take offset and limit parameters. A request body larger
+ * than MAX_BODY bytes is refused with 413. Each request runs on
+ * its own virtual thread when the Java runtime has them, and on a pool of
+ * platform threads otherwise.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class ApiServer {
+
+    private static final int BACKLOG = 4096;
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 10000;
+    /**
+     * The largest request body accepted, in bytes.
+     */
+    public static final int MAX_BODY = 1 << 20;
+    private final StoreManagement store;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Constructor for the ApiServer class.
+     *
+     * @param store The store to serve.
+     * @param port The port to listen on, or 0 for any free port.
+     * @throws IOException If the port cannot be bound.
+     */
+    public ApiServer(StoreManagement store, int port) throws IOException {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            // The headers and the body are written separately; without
+            // TCP_NODELAY a small response waits for the client's delayed ACK.
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        this.store = store;
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        this.executor = newExecutor();
+        server.setExecutor(executor);
+        server.createContext("/flowers", this::handleFlowers);
+        server.createContext("/orders", this::handleOrders);
+        server.createContext("/customers", this::handleCustomers);
+        server.createContext("/sales", this::handleSales);
+    }
+
+    /**
+     * Creates a virtual-thread-per-request executor, or a fixed pool of
+     * platform threads on runtimes without virtual threads.
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 8, r -> {
+                Thread t = new Thread(r, "api-worker");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * Thrown when a request body is larger than MAX_BODY, answered with 413.
+     */
+    private static final class BodyTooLargeException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        BodyTooLargeException() {
+            super("The request body must not be larger than " + MAX_BODY + " bytes");
+        }
+    }
+
+    /**
+     * Starts the server.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, waits for the running requests to finish and
+     * stops the server.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handleFlowers(HttpExchange ex) throws IOException {
+        try {
+            String id = pathId(ex, "/flowers");
+            String method = ex.getRequestMethod();
+            if (id == null && method.equals("GET")) {
+                Map<String, String> query = query(ex);
+                List<Flower> list;
+                if (query.containsKey("category") || query.containsKey("minPrice") || query.containsKey("maxPrice")) {
+                    list = store.findFlowers(query.get("category"), parsePrice(query.get("minPrice"), "minPrice"),
+                            parsePrice(query.get("maxPrice"), "maxPrice"));
+                } else {
+                    list = store.findFlowers(query.get("name"));
+                }
+                StringBuilder sb = new StringBuilder("[");
+                for (Flower f : list) {
+                    appendFlower(sb.length() > 1 ? sb.append(',') : sb, f);
+                }
+                send(ex, 200, sb.append(']'));
+            } else if (id == null && method.equals("POST")) {
+                Map<String, Object> body = body(ex);
+                Double unitPrice = number(body, "unitPrice");
+                Flower f = store.addFlower(string(body, "flowerId"), string(body, "name"), date(body, "importDate"),
+                        unitPrice == null ? -1 : unitPrice, string(body, "category"));
+                send(ex, 201, appendFlower(new StringBuilder(), f));
+            } else if (id != null && method.equals("GET")) {
+                sendFlower(ex, store.getFlower(id));
+            } else if (id != null && method.equals("PUT")) {
+                Map<String, Object> body = body(ex);
+                sendFlower(ex, store.updateFlower(id, string(body, "name"), date(body, "importDate"),
+                        number(body, "unitPrice"), string(body, "category")));
+            } else if (id != null && method.equals("DELETE")) {
+                if (store.deleteFlower(id)) {
+                    send(ex, 204, null);
+                } else {
+                    sendError(ex, 404, "The flower does not exist!");
+                }
+            } else {
+                sendError(ex, 405, "Method not allowed");
+            }
+        } catch (BodyTooLargeException e) {
+            sendError(ex, 413, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendError(ex, 400, e.getMessage());
+        } catch (IllegalStateException e) {
+            sendError(ex, 409, e.getMessage());
+        } catch (RuntimeException e) {
+            sendInternalError(ex, e);
+        }
+    }
+
+    private void handleOrders(HttpExchange ex) throws IOException {
+        try {
+            String id = pathId(ex, "/orders");
+            String method = ex.getRequestMethod();
+            if (id != null) {
+                sendError(ex, 404, "Not found");
+            } else if (method.equals("GET")) {
+                Map<String, String> query = query(ex);
+                int offset = parseInt(query.get("offset"), 0, "offset");
+                int limit = Math.min(parseInt(query.get("limit"), DEFAULT_LIMIT, "limit"), MAX_LIMIT);
+                List<Order> list;
+                if (query.containsKey("sort")) {
+                    list = store.sortOrders(sortField(query.get("sort")), "true".equals(query.get("desc")), offset, limit);
+                } else {
+                    LocalDate from = parseDate(query.get("from"), "from");
+                    LocalDate to = parseDate(query.get("to"), "to");
+                    list = store.findOrders(from, to, offset, limit);
+                }
+                StringBuilder sb = new StringBuilder("[");
+                for (Order o : list) {
+                    appendOrder(sb.length() > 1 ? sb.append(',') : sb, o);
+                }
+                send(ex, 200, sb.append(']'));
+            } else if (method.equals("POST")) {
+                Map<String, Object> body = body(ex);
+                Object details = body.get("details");
+                if (!(details instanceof List)) {
+                    throw new IllegalArgumentException("details must be an array");
+                }
+                List<String> flowerIds = new ArrayList<>();
+                List<Integer> quantities = new ArrayList<>();
+                for (Object d : (List<?>) details) {
+                    if (!(d instanceof Map)) {
+                        throw new IllegalArgumentException("each detail must be an object");
+                    }
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> detail = (Map<String, Object>) d;
+                    Double quantity = number(detail, "quantity");
+                    flowerIds.add(string(detail, "flowerId"));
+                    quantities.add(quantity == null || quantity != Math.floor(quantity)
+                            || quantity > Integer.MAX_VALUE ? 0 : quantity.intValue());
+                }
+                Order o = store.addOrder(date(body, "orderDate"), string(body, "customerName"), flowerIds, quantities);
+                send(ex, 201, appendOrder(new StringBuilder(), o));
+            } else {
+                sendError(ex, 405, "Method not allowed");
+            }
+        } catch (BodyTooLargeException e) {
+            sendError(ex, 413, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            sendError(ex, 400, e.getMessage());
+        } catch (IllegalStateException e) {
+            sendError(ex, 409, e.getMessage());
+        } catch (RuntimeException e) {
+            sendInternalError(ex, e);
+        }
+    }
+
+    private void handleCustomers(HttpExchange ex) throws IOException {
+        try {
+            String name = pathId(ex, "/customers");
+            if (name == null) {
+                sendError(ex, 404, "Not found");
+            } else if (ex.getRequestMethod().equals("GET")) {
+                Map<String, String> query = query(ex);
+                int offset = parseInt(query.get("offset"), 0, "offset");
+                int limit = Math.min(parseInt(query.get("limit"), DEFAULT_LIMIT, "limit"), MAX_LIMIT);
+                StringBuilder sb = new StringBuilder("{\"customerName\":");
+                Json.quote(sb, name).append(",\"orderCount\":").append(store.getCustomerOrderCount(name));
+                sb.append(",\"quantity\":").append(store.getCustomerQuantity(name));
+                sb.append(",\"spend\":").append(store.getCustomerSpend(name)).append(",\"orders\":[");
+                boolean first = true;
+                for (Order o : store.findCustomerOrders(name, offset, limit)) {
+                    appendOrder(first ? sb : sb.append(','), o);
+                    first = false;
+                }
+                send(ex, 200, sb.append("]}"));
+            } else {
+                sendError(ex, 405, "Method not allowed");
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(ex, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            sendInternalError(ex, e);
+        }
+    }
+
+    private void handleSales(HttpExchange ex) throws IOException {
+        try {
+            if (pathId(ex, "/sales") != null) {
+                sendError(ex, 404, "Not found");
+            } else if (ex.getRequestMethod().equals("GET")) {
+                Map<String, String> query = query(ex);
+                SalesRollup sales = store.getSales();
+                long quantity;
+                double revenue;
+                if (query.containsKey("flowerId")) {
+                    quantity = sales.getFlowerQuantity(query.get("flowerId"));
+                    revenue = sales.getFlowerRevenue(query.get("flowerId"));
+                } else if (query.containsKey("category")) {
+                    quantity = store.getCategoryQuantity(query.get("category"));
+                    revenue = store.getCategoryRevenue(query.get("category"));
+                } else {
+                    LocalDate from = parseDate(query.get("from"), "from");
+                    LocalDate to = parseDate(query.get("to"), "to");
+                    quantity = sales.getQuantity(from, to);
+                    revenue = sales.getRevenue(from, to);
+                }
+                send(ex, 200, new StringBuilder("{\"quantity\":").append(quantity)
+                        .append(",\"revenue\":").append(revenue).append('}'));
+            } else {
+                sendError(ex, 405, "Method not allowed");
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(ex, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            sendInternalError(ex, e);
+        }
+    }
+
+    /**
+     * Returns the path segment after the context path, or null if there is
+     * none.
+     */
+    private static String pathId(HttpExchange ex, String context) {
+        String path = ex.getRequestURI().getPath();
+        String rest = path.substring(context.length());
+        if (rest.startsWith("/")) {
+            rest = rest.substring(1);
+        }
+        return rest.isEmpty() ? null : rest;
+    }
+
+    private static Map<String, String> query(HttpExchange ex) throws UnsupportedEncodingException {
+        Map<String, String> map = new HashMap<>();
+        String raw = ex.getRequestURI().getRawQuery();
+        if (raw != null) {
+            for (String pair : raw.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    map.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"), URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Reads the JSON object of the request body, refusing a body larger than
+     * MAX_BODY from its Content-Length, or while it is read if the length is
+     * not given.
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> body(HttpExchange ex) throws IOException {
+        long length = -1;
+        String header = ex.getRequestHeaders().getFirst("Content-Length");
+        if (header != null) {
+            try {
+                length = Long.parseLong(header.trim());
+            } catch (NumberFormatException e) {
+            }
+        }
+        if (length > MAX_BODY) {
+            throw new BodyTooLargeException();
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(length > 0 ? (int) length : 256);
+        try (InputStream in = ex.getRequestBody()) {
+            byte[] buf = new byte[4096];
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                if (bytes.size() + n > MAX_BODY) {
+                    throw new BodyTooLargeException();
+                }
+                bytes.write(buf, 0, n);
+            }
+        }
+        Object body = Json.parse(new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+        if (!(body instanceof Map)) {
+            throw new IllegalArgumentException("The request body must be a JSON object");
+        }
+        return (Map<String, Object>) body;
+    }
+
+    private static String string(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        if (value != null && !(value instanceof String)) {
+            throw new IllegalArgumentException(name + " must be a string");
+        }
+        return (String) value;
+    }
+
+    private static Double number(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        if (value != null && !(value instanceof Double)) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+        return (Double) value;
+    }
+
+    private static LocalDate date(Map<String, Object> body, String name) {
+        String value = string(body, name);
+        return value == null ? null : parseDate(value, name);
+    }
+
+    private static LocalDate parseDate(String value, String name) {
+        LocalDate date = Validator.parseDate(value);
+        if (date == null) {
+            throw new IllegalArgumentException(name + ": " + Validator.DATE_FORMAT);
+        }
+        return date;
+    }
+
+    private static int parseInt(String value, int defaultValue, String name) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            int n = Integer.parseInt(value);
+            if (n >= 0) {
+                return n;
+            }
+        } catch (NumberFormatException e) {
+        }
+        throw new IllegalArgumentException(name + " must be a number from 0");
+    }
+
+    private static Double parsePrice(String value, String name) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            double price = Double.parseDouble(value);
+            if (price >= 0 && !Double.isInfinite(price)) {
+                return price;
+            }
+        } catch (NumberFormatException e) {
+        }
+        throw new IllegalArgumentException(name + " must be a number from 0");
+    }
+
+    private static int sortField(String sort) {
+        switch (sort) {
+            case "id":
+                return 1;
+            case "date":
+                return 2;
+            case "customer":
+                return 3;
+            case "total":
+                return 4;
+            default:
+                throw new IllegalArgumentException("sort must be id, date, customer or total");
+        }
+    }
+
+    private static String formatDate(int day) {
+        return day == Days.NONE ? null : RowFormatter.formatDate(day);
+    }
+
+    private static StringBuilder appendFlower(StringBuilder sb, Flower f) {
+        sb.append("{\"flowerId\":");
+        Json.quote(sb, f.getFlowerId()).append(",\"name\":");
+        Json.quote(sb, f.getName()).append(",\"importDate\":");
+        Json.quote(sb, formatDate(f.getImportDay()));
+        sb.append(",\"unitPrice\":").append(f.getUnitPrice()).append(",\"category\":");
+        return Json.quote(sb, f.getCategory()).append('}');
+    }
+
+    private static StringBuilder appendOrder(StringBuilder sb, Order o) {
+        sb.append("{\"orderId\":");
+        Json.quote(sb, o.getOrderId()).append(",\"orderDate\":");
+        Json.quote(sb, formatDate(o.getOrderDay())).append(",\"customerName\":");
+        Json.quote(sb, o.getCustomerName()).append(",\"quantity\":").append(o.getQuantity());
+        sb.append(",\"total\":").append(o.getFlowerCost()).append(",\"details\":[");
+        boolean first = true;
+        for (OrderDetail d : o.getOrderDetail()) {
+            sb.append(first ? "{\"orderDetailId\":" : ",{\"orderDetailId\":");
+            Json.quote(sb, d.getOrderDetailId()).append(",\"flowerId\":");
+            Json.quote(sb, d.getFlowerId()).append(",\"quantity\":").append(d.getQuantity());
+            sb.append(",\"flowerCost\":").append(d.getFlowerCost()).append('}');
+            first = false;
+        }
+        return sb.append("]}");
+    }
+
+    private static void sendFlower(HttpExchange ex, Flower f) throws IOException {
+        if (f == null) {
+            sendError(ex, 404, "The flower does not exist!");
+        } else {
+            send(ex, 200, appendFlower(new StringBuilder(), f));
+        }
+    }
+
+    private static void sendError(HttpExchange ex, int status, String msg) throws IOException {
+        send(ex, status, Json.quote(new StringBuilder("{\"error\":"), msg).append('}'));
+    }
+
+    /**
+     * Answers 500 for an unexpected failure. The failure is logged on the
+     * server only; the client gets a fixed message, so no class name or
+     * internal detail leaks into the response.
+     */
+    private static void sendInternalError(HttpExchange ex, RuntimeException e) throws IOException {
+        System.out.println(e);
+        sendError(ex, 500, "internal error");
+    }
+
+    private static void send(HttpExchange ex, int status, CharSequence json) throws IOException {
+        if (json == null) {
+            ex.sendResponseHeaders(status, -1);
+            ex.close();
+            return;
+        }
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = ex.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
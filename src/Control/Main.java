@@ -2,17 +2,23 @@ package Control;
 
 import Tools.Menu;
 import Bussiness.StoreManagement;
-import java.text.ParseException;
+import java.io.IOException;
 
 /**
  *
  * @author Nguyen Truong Tho
  */
 public class Main {
-    public static void main(String[] args) throws ParseException, Exception {
+    private static final String USAGE = "Usage: [--import-flowers FILE] [--import-orders FILE] | --server PORT";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            runBatch(args);
+            return;
+        }
         String[] options = {"1. Add a flower.","2. Find a flower.","3. Update a flower.",
             "4. Delete a flower.","5. Add an order.","6. Display orders.","7. Sort orders.",
-            "8. Save data.","9. Load data.","10. Quit."};
+            "8. Save data.","9. Save full snapshot.","10. Load data.","11. Quit."};
         int choice = 0;
         StoreManagement store = new StoreManagement();
         do {
@@ -42,14 +48,88 @@ public class Main {
                 case 8://save data
                     store.saveData();
                     break;
-                case 9://Load data
+                case 9://Save full snapshot
+                    store.saveSnapshot();
+                    break;
+                case 10://Load data
                     store.loadData();
                     break;
-                case 10://Quit
+                case 11://Quit
                     store.quitProgram();
                     break;
             }
           
         } while (choice>0&&choice<options.length+1);
     }
+
+    /**
+     * Runs the store without the menu, for the command line options:
+     * --import-flowers FILE and --import-orders FILE (both may be repeated),
+     * and --server PORT, which serves the store over HTTP until the process
+     * is stopped.
+     *
+     * @param args The command line arguments.
+     * @throws IOException If the server port cannot be bound.
+     */
+    private static void runBatch(String[] args) throws IOException {
+        if (args.length == 2 && args[0].equals("--server")) {
+            int port = parsePort(args[1]);
+            if (port < 0) {
+                System.out.println("The port must be a number from 0 to 65535!");
+                System.out.println(USAGE);
+                return;
+            }
+            runServer(new StoreManagement(), port);
+            return;
+        }
+        StoreManagement store = new StoreManagement();
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 < args.length && args[i].equals("--import-flowers")) {
+                store.importFlowers(args[i + 1]);
+            } else if (i + 1 < args.length && args[i].equals("--import-orders")) {
+                store.importOrders(args[i + 1]);
+            } else {
+                System.out.println(USAGE);
+                break;
+            }
+        }
+        store.close();
+    }
+
+    /**
+     * Parses a TCP port, 0 meaning any free port.
+     *
+     * @param s The text of the port.
+     * @return The port, or -1 if it is not a number from 0 to 65535.
+     */
+    private static int parsePort(String s) {
+        try {
+            int port = Integer.parseInt(s);
+            return port >= 0 && port <= 65535 ? port : -1;
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Loads the data and serves the store over HTTP. The changes are saved
+     * when the process is stopped.
+     *
+     * @param store The store to serve.
+     * @param port The port to listen on.
+     * @throws IOException If the port cannot be bound.
+     */
+    private static void runServer(final StoreManagement store, int port) throws IOException {
+        if (!store.isLoaded()) {
+            store.loadData();
+        }
+        final ApiServer server = new ApiServer(store, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop();
+            store.saveData();
+            store.close();
+        }));
+        server.start();
+        System.out.println("Serving the store on port " + server.getPort() + "...");
+    }
 }
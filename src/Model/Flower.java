@@ -1,24 +1,55 @@
 package Model;
 
+import Tools.Codes;
+import Tools.Days;
+import Tools.RowFormatter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
 import java.util.Date;
 
 /**
- * This class represents a flower object.
+ * This class represents a flower object. Categories are interned, so the
+ * flowers of one category share one string. A flower is immutable: the
+ * collections index flowers by their fields and are read while they are
+ * saved, so a changed flower is a new flower.
  * @author Nguyen Truong Tho
  */
-public class Flower implements Serializable {
+public class Flower implements Serializable, RowFormatter.Row {
 
-    private String flowerId;
+    private static final long serialVersionUID = 8981949823874510141L;
 
-    private String name;
+    /**
+     * The serialized form keeps the import date as a java.util.Date, so
+     * flowers.dat files saved before dates became epoch days can still be
+     * read.
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("flowerId", String.class),
+        new ObjectStreamField("name", String.class),
+        new ObjectStreamField("importDate", Date.class),
+        new ObjectStreamField("unitPrice", double.class),
+        new ObjectStreamField("category", String.class)
+    };
+
+    private final String flowerId;
+
+    private final String name;
 
-    private Date importDate;
+    private final int importDay;
 
-    private double unitPrice;
+    private final double unitPrice;
 
-    private String category;
+    private final String category;
+
+    /**
+     * The flower built from the fields read by readObject, which readResolve
+     * returns in place of the instance being read.
+     */
+    private transient Flower resolved;
 
     /**
      * Constructor for the Flower class.
@@ -29,48 +60,85 @@ public class Flower implements Serializable {
      * @param unitPrice The price per unit of the flower.
      * @param category The category of the flower.
      */
-    public Flower(String flowerId, String name, Date importDate, double unitPrice, String category) {
+    public Flower(String flowerId, String name, LocalDate importDate, double unitPrice, String category) {
+        this(flowerId, name, Days.of(importDate), unitPrice, category);
+    }
+
+    /**
+     * Constructor for the Flower class.
+     *
+     * @param flowerId The ID of the flower.
+     * @param name The name of the flower.
+     * @param importDay The epoch day the flower was imported, or Days.NONE.
+     * @param unitPrice The price per unit of the flower.
+     * @param category The category of the flower.
+     */
+    public Flower(String flowerId, String name, int importDay, double unitPrice, String category) {
         this.flowerId = flowerId;
         this.name = name;
-        this.importDate = importDate;
+        this.importDay = importDay;
         this.unitPrice = unitPrice;
-        this.category = category;
+        this.category = Codes.intern(category);
     }
 
     /**
-     * Get the value of category
+     * Writes the flower with its import date as a java.util.Date at the start
+     * of the day in the default time zone.
      *
-     * @return the value of category
+     * @param out The stream to write to.
+     * @throws IOException If an I/O error occurs.
      */
-    public String getCategory() {
-        return category;
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("flowerId", flowerId);
+        fields.put("name", name);
+        fields.put("importDate", Days.toDate(importDay));
+        fields.put("unitPrice", unitPrice);
+        fields.put("category", category);
+        out.writeFields();
     }
 
     /**
-     * Set the value of category
+     * Reads a flower, turning its java.util.Date into the local day in the
+     * default time zone. The fields are final, so the flower is built with
+     * the constructor and returned by readResolve.
      *
-     * @param category new value of category
+     * @param in The stream to read from.
+     * @throws IOException If an I/O error occurs.
+     * @throws ClassNotFoundException If a class of the flower is not found.
      */
-    public void setCategory(String category) {
-        this.category = category;
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        resolved = new Flower((String) fields.get("flowerId", null), (String) fields.get("name", null),
+                Days.ofDate((Date) fields.get("importDate", null)), fields.get("unitPrice", 0.0),
+                (String) fields.get("category", null));
     }
 
     /**
-     * Get the value of unitPrice
+     * Returns the flower built by readObject in place of the one read.
      *
-     * @return the value of unitPrice
+     * @return The flower built from the fields read.
      */
-    public double getUnitPrice() {
-        return unitPrice;
+    private Object readResolve() {
+        return resolved;
     }
 
     /**
-     * Set the value of unitPrice
+     * Get the value of category
      *
-     * @param unitPrice new value of unitPrice
+     * @return the value of category
      */
-    public void setUnitPrice(double unitPrice) {
-        this.unitPrice = unitPrice;
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * Get the value of unitPrice
+     *
+     * @return the value of unitPrice
+     */
+    public double getUnitPrice() {
+        return unitPrice;
     }
 
     /**
@@ -78,17 +146,17 @@ public class Flower implements Serializable {
      *
      * @return the value of importDate
      */
-    public Date getImportDate() {
-        return importDate;
+    public LocalDate getImportDate() {
+        return Days.toLocalDate(importDay);
     }
 
     /**
-     * Set the value of importDate
+     * Get the date the flower was imported as an epoch day.
      *
-     * @param importDate new value of importDate
+     * @return The epoch day, or Days.NONE if the flower has no import date.
      */
-    public void setImportDate(Date importDate) {
-        this.importDate = importDate;
+    public int getImportDay() {
+        return importDay;
     }
 
     /**
@@ -100,15 +168,6 @@ public class Flower implements Serializable {
         return name;
     }
 
-    /**
-     * Set the value of description
-     *
-     * @param name
-     */
-    public void setName(String name) {
-        this.name = name;
-    }
-
     /**
      * Get the value of id
      *
@@ -119,22 +178,28 @@ public class Flower implements Serializable {
     }
 
     /**
-     * Set the value of id
+     * Returns a string representation of this object.
      *
-     * @param flowerId
+     * @return A string representation of this object.
      */
-    public void setFlowerId(String flowerId) {
-        this.flowerId = flowerId;
+    @Override
+    public String toString() {
+        return appendTo(new StringBuilder(84)).toString();
     }
 
     /**
-     * Returns a string representation of this object.
+     * Appends the table row of this object, the same as
+     * String.format("| %-9s | %-20s | %12s | %12.3f | %8s |") of its fields.
      *
-     * @return A string representation of this object.
+     * @param sb The builder to append to.
+     * @return The builder.
      */
     @Override
-    public String toString() {
-        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyy");
-        return String.format("| %-9s | %-20s | %12s | %12.3f | %8s |", getFlowerId(), getName(), sdf.format(getImportDate()), getUnitPrice(), getCategory());
+    public StringBuilder appendTo(StringBuilder sb) {
+        RowFormatter.left(sb.append("| "), getFlowerId(), 9);
+        RowFormatter.left(sb.append(" | "), getName(), 20);
+        RowFormatter.date(sb.append(" | "), importDay, 12);
+        RowFormatter.decimal(sb.append(" | "), getUnitPrice(), 12);
+        return RowFormatter.right(sb.append(" | "), getCategory(), 8).append(" |");
     }
 }
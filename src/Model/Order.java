@@ -1,7 +1,15 @@
 package Model;
 
+import Tools.Days;
+import Tools.RowFormatter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
-import java.text.SimpleDateFormat;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -9,14 +17,36 @@ import java.util.List;
  * This class represents an order object.
  * @author Nguyen Truong Tho
  */
-public class Order implements Serializable {
+public class Order implements Serializable, RowFormatter.Row {
+
+    private static final long serialVersionUID = 8992049285514927765L;
+
+    /**
+     * The serialized form keeps the order date as a java.util.Date, so
+     * orders.dat files saved before dates became epoch days can still be
+     * read.
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("orderId", String.class),
+        new ObjectStreamField("orderDate", Date.class),
+        new ObjectStreamField("customerName", String.class),
+        new ObjectStreamField("orderDetail", List.class),
+        new ObjectStreamField("quantity", int.class),
+        new ObjectStreamField("flowerCost", double.class)
+    };
 
     private final String orderId;
-    private final Date orderDate;
+    private final int orderDay;
     private final String customerName;
     private final List<OrderDetail> orderDetail;
-    private int quantity;
-    private double flowerCost;
+    private final int quantity;
+    private final double flowerCost;
+
+    /**
+     * The order built from the fields read by readObject, which readResolve
+     * returns in place of the instance being read.
+     */
+    private transient Order resolved;
 
     /**
      * Constructor for the Order class.
@@ -25,13 +55,87 @@ public class Order implements Serializable {
      * @param orderDate The date the order was placed.
      * @param customerName The name of the customer who placed the order.
      * @param orderDetail A list of OrderDetail objects that contain information
-     * about each item in the order.
+     * about each item in the order. The list is copied, and the total
+     * quantity and cost are computed once from it.
      */
-    public Order(String orderId, Date orderDate, String customerName, List<OrderDetail> orderDetail) {
+    public Order(String orderId, LocalDate orderDate, String customerName, List<OrderDetail> orderDetail) {
+        this(orderId, Days.of(orderDate), customerName, orderDetail);
+    }
+
+    /**
+     * Constructor for the Order class.
+     *
+     * @param orderId The ID of the order.
+     * @param orderDay The epoch day the order was placed, or Days.NONE.
+     * @param customerName The name of the customer who placed the order.
+     * @param orderDetail A list of OrderDetail objects that contain information
+     * about each item in the order. The list is copied, and the total
+     * quantity and cost are computed once from it.
+     */
+    public Order(String orderId, int orderDay, String customerName, List<OrderDetail> orderDetail) {
         this.orderId = orderId;
-        this.orderDate = orderDate;
+        this.orderDay = orderDay;
         this.customerName = customerName;
-        this.orderDetail = orderDetail;
+        this.orderDetail = Collections.unmodifiableList(new ArrayList<>(orderDetail));
+        int q = 0;
+        double cost = 0;
+        for (OrderDetail o : this.orderDetail) {
+            q += o.getQuantity();
+            cost += o.getFlowerCost();
+        }
+        this.quantity = q;
+        this.flowerCost = cost;
+    }
+
+    /**
+     * Writes the order with its date as a java.util.Date at the start of the
+     * day in the default time zone.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("orderId", orderId);
+        fields.put("orderDate", Days.toDate(orderDay));
+        fields.put("customerName", customerName);
+        fields.put("orderDetail", new ArrayList<>(orderDetail));
+        fields.put("quantity", quantity);
+        fields.put("flowerCost", flowerCost);
+        out.writeFields();
+    }
+
+    /**
+     * Reads an order, turning its java.util.Date into the local day in the
+     * default time zone. The fields are final, so the order is built with the
+     * constructor and returned by readResolve; the totals are computed again
+     * from the details, so orders saved before the totals were kept are read
+     * too.
+     *
+     * @param in The stream to read from.
+     * @throws IOException If an I/O error occurs.
+     * @throws ClassNotFoundException If a class of the order is not found.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        List<OrderDetail> details = new ArrayList<>();
+        Object list = fields.get("orderDetail", null);
+        if (list != null) {
+            for (Object d : (List<?>) list) {
+                details.add(OrderDetail.class.cast(d));
+            }
+        }
+        resolved = new Order((String) fields.get("orderId", null), Days.ofDate((Date) fields.get("orderDate", null)),
+                (String) fields.get("customerName", null), details);
+    }
+
+    /**
+     * Returns the order built by readObject in place of the one read.
+     *
+     * @return The order built from the fields read.
+     */
+    private Object readResolve() {
+        return resolved;
     }
 
     /**
@@ -48,8 +152,17 @@ public class Order implements Serializable {
      *
      * @return the value of orderDate
      */
-    public Date getOrderDate() {
-        return orderDate;
+    public LocalDate getOrderDate() {
+        return Days.toLocalDate(orderDay);
+    }
+
+    /**
+     * Get the date the order was placed as an epoch day.
+     *
+     * @return The epoch day, or Days.NONE if the order has no date.
+     */
+    public int getOrderDay() {
+        return orderDay;
     }
 
     /**
@@ -67,10 +180,6 @@ public class Order implements Serializable {
      * @return The total quantity of flowers in the order.
      */
     public int getQuantity() {
-        quantity = 0;
-        for (OrderDetail o : orderDetail) {
-            quantity += o.getQuantity();
-        }
         return quantity;
     }
 
@@ -80,16 +189,12 @@ public class Order implements Serializable {
      * @return The total cost of all flowers in the order.
      */
     public double getFlowerCost() {
-        flowerCost = 0;
-        for (OrderDetail o : orderDetail) {
-            flowerCost += o.getFlowerCost();
-        }
         return flowerCost;
     }
 
     /**
-     * Get a list of OrderDetail objects that contain information about each
-     * item in the order.
+     * Get an unmodifiable list of OrderDetail objects that contain information
+     * about each item in the order.
      *
      * @return A list of OrderDetail objects that contain information about each
      * item in the order.
@@ -98,6 +203,22 @@ public class Order implements Serializable {
         return orderDetail;
     }
 
+    /**
+     * Appends the table row of this object, the same as
+     * String.format("| %-9s | %12s | %-20s | %12d | %11.3f |") of its fields.
+     *
+     * @param sb The builder to append to.
+     * @return The builder.
+     */
+    @Override
+    public StringBuilder appendTo(StringBuilder sb) {
+        RowFormatter.left(sb.append("| "), getOrderId(), 9);
+        RowFormatter.date(sb.append(" | "), orderDay, 12);
+        RowFormatter.left(sb.append(" | "), getCustomerName(), 20);
+        RowFormatter.number(sb.append(" | "), getQuantity(), 12);
+        return RowFormatter.decimal(sb.append(" | "), getFlowerCost(), 11).append(" |");
+    }
+
     /**
      * Returns a string representation of this object.
      *
@@ -105,8 +226,7 @@ public class Order implements Serializable {
      */
     @Override
     public String toString() {
-        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyy");
-        return String.format("| %-9s | %12s | %-20s | %12d | %11.3f |", getOrderId(), sdf.format(getOrderDate()), getCustomerName(), getQuantity(), getFlowerCost());
+        return appendTo(new StringBuilder(88)).toString();
     }
 
 }
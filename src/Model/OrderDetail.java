@@ -1,15 +1,34 @@
 package Model;
 
+import Tools.Codes;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 
 /**
- * This class represents an order detail object.
+ * This class represents an order detail object. The order detail ID and the
+ * flower ID are kept packed into ints by Codes.
  * @author Nguyen Truong Tho
  */
 public class OrderDetail implements Serializable {
 
-    private String orderDetailId;
-    private String flowerID;
+    private static final long serialVersionUID = -6874870193199072592L;
+
+    /**
+     * The serialized form keeps both IDs as strings, so orders.dat files saved
+     * before the IDs were packed can still be read.
+     */
+    private static final ObjectStreamField[] serialPersistentFields = {
+        new ObjectStreamField("orderDetailId", String.class),
+        new ObjectStreamField("flowerID", String.class),
+        new ObjectStreamField("quantity", int.class),
+        new ObjectStreamField("flowerCost", double.class)
+    };
+
+    private int orderDetailId;
+    private int flower;
     private int quantity;
     private double flowerCost;
 
@@ -22,19 +41,59 @@ public class OrderDetail implements Serializable {
      * @param flowerCost The cost of the flowers in the order detail.
      */
     public OrderDetail(String orderDetailId, String flowerID, int quantity, double flowerCost) {
-        this.orderDetailId = orderDetailId;
-        this.flowerID = flowerID;
+        this.orderDetailId = Codes.packNumber(orderDetailId);
+        this.flower = Codes.packFlowerId(flowerID);
         this.quantity = quantity;
         this.flowerCost = flowerCost;
     }
 
+    /**
+     * Writes the order detail with its IDs unpacked.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If an I/O error occurs.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("orderDetailId", getOrderDetailId());
+        fields.put("flowerID", getFlowerId());
+        fields.put("quantity", quantity);
+        fields.put("flowerCost", flowerCost);
+        out.writeFields();
+    }
+
+    /**
+     * Reads an order detail, packing its IDs.
+     *
+     * @param in The stream to read from.
+     * @throws IOException If an I/O error occurs.
+     * @throws ClassNotFoundException If a class of the order detail is not
+     * found.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        orderDetailId = Codes.packNumber((String) fields.get("orderDetailId", null));
+        flower = Codes.packFlowerId((String) fields.get("flowerID", null));
+        quantity = fields.get("quantity", 0);
+        flowerCost = fields.get("flowerCost", 0.0);
+    }
+
+    /**
+     * Get the value of orderDetailId
+     *
+     * @return the value of orderDetailId
+     */
+    public String getOrderDetailId() {
+        return Codes.unpackNumber(orderDetailId);
+    }
+
     /**
      * Set the value of orderDetailId
      *
      * @param orderDetailId new value of orderDetailId
      */
     public void setOrderDetailId(String orderDetailId) {
-        this.orderDetailId = orderDetailId;
+        this.orderDetailId = Codes.packNumber(orderDetailId);
     }
 
     /**
@@ -43,7 +102,17 @@ public class OrderDetail implements Serializable {
      * @return the value of flowerID
      */
     public String getFlowerId() {
-        return flowerID;
+        return Codes.unpackFlowerId(flower);
+    }
+
+    /**
+     * Get the flower ID packed by Codes.packFlowerId, which is the flower's
+     * number for an ID in the FXXX format.
+     *
+     * @return The packed flower ID.
+     */
+    public int getFlowerCode() {
+        return flower;
     }
 
     /**
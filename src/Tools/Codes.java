@@ -0,0 +1,225 @@
+package Tools;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class packs the short identifiers held by many records into ints, so
+ * an order detail keeps two ints instead of two strings. A flower ID (FXXX)
+ * is packed as its number and an order detail ID (0001) as its sequence
+ * number. Any other string, such as an ID saved by an older version in
+ * another format, is registered once and packed as a negative code, so every
+ * string comes back unchanged. Unpacked strings are cached, so unpacking
+ * does not allocate.
+ * <p>
+ * Flower IDs are an F followed by FLOWER_DIGITS to FLOWER_MAX_DIGITS digits,
+ * without leading zeros beyond the shortest form. The flower catalog is an
+ * array of FLOWER_CAPACITY slots indexed by the number, so the ID space can be
+ * widened by raising FLOWER_MAX_DIGITS: F001 stays F001 and F1000 becomes a
+ * valid ID.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class Codes {
+
+    /**
+     * The code of a null string.
+     */
+    public static final int NULL = Integer.MIN_VALUE;
+    public static final int FLOWER_DIGITS = 3;
+    public static final int FLOWER_MAX_DIGITS = 3;
+    public static final int FLOWER_CAPACITY = pow10(FLOWER_MAX_DIGITS);
+    public static final String FLOWER_REGEX = "[fF][0-9]{" + FLOWER_DIGITS + "," + FLOWER_MAX_DIGITS + "}";
+    private static final int NUMBER_DIGITS = 4;
+    private static final int NUMBER_CACHE = 1 << 10;
+    private static final String[] FLOWER_IDS = new String[FLOWER_CAPACITY];
+    private static final String[] NUMBERS = new String[NUMBER_CACHE];
+    private static final ConcurrentHashMap<String, Integer> CODES = new ConcurrentHashMap<>();
+    private static final List<String> STRINGS = new ArrayList<>();
+    private static final ConcurrentHashMap<String, String> INTERNED = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the number of a flower ID, with the F in either case.
+     *
+     * @param flowerId The flower ID.
+     * @return The number, or -1 if the string is not a flower ID.
+     */
+    public static int flowerNumber(String flowerId) {
+        if (flowerId == null) {
+            return -1;
+        }
+        int n = flowerId.length() - 1;
+        if (n < FLOWER_DIGITS || n > FLOWER_MAX_DIGITS || (flowerId.charAt(0) | 0x20) != 'f'
+                || (n > FLOWER_DIGITS && flowerId.charAt(1) == '0')) {
+            return -1;
+        }
+        return digits(flowerId, 1);
+    }
+
+    /**
+     * Returns the flower ID of a number.
+     *
+     * @param number The number, from 0 to FLOWER_CAPACITY - 1.
+     * @return The flower ID.
+     */
+    public static String flowerId(int number) {
+        String id = FLOWER_IDS[number];
+        if (id == null) {
+            id = pad(new StringBuilder(FLOWER_MAX_DIGITS + 1).append('F'), number, FLOWER_DIGITS).toString();
+            FLOWER_IDS[number] = id;
+        }
+        return id;
+    }
+
+    /**
+     * Packs a flower ID, registering it if it is not in the FXXX format. An ID
+     * with a lower-case f is packed as the same number as with an upper-case
+     * F, and unpacks with an upper-case F.
+     *
+     * @param flowerId The flower ID, or null.
+     * @return The code.
+     */
+    public static int packFlowerId(String flowerId) {
+        int number = flowerNumber(flowerId);
+        return number >= 0 ? number : register(flowerId);
+    }
+
+    /**
+     * Returns the code of a flower ID without registering it.
+     *
+     * @param flowerId The flower ID.
+     * @return The code, or NULL if the ID has never been packed.
+     */
+    public static int flowerCode(String flowerId) {
+        int number = flowerNumber(flowerId);
+        if (number >= 0) {
+            return number;
+        }
+        Integer code = flowerId == null ? null : CODES.get(flowerId);
+        return code == null ? NULL : code;
+    }
+
+    /**
+     * Unpacks a flower ID.
+     *
+     * @param code The code.
+     * @return The flower ID.
+     */
+    public static String unpackFlowerId(int code) {
+        return code >= 0 ? flowerId(code) : lookup(code);
+    }
+
+    /**
+     * Packs a sequence number of at least four digits, the form given by
+     * OrderManagement.formatId, registering any other string.
+     *
+     * @param id The ID, or null.
+     * @return The code.
+     */
+    public static int packNumber(String id) {
+        if (id != null && id.length() >= NUMBER_DIGITS && id.length() <= 9
+                && (id.length() == NUMBER_DIGITS || id.charAt(0) != '0')) {
+            int n = digits(id, 0);
+            if (n >= 0) {
+                return n;
+            }
+        }
+        return register(id);
+    }
+
+    /**
+     * Unpacks a sequence number.
+     *
+     * @param code The code.
+     * @return The ID.
+     */
+    public static String unpackNumber(int code) {
+        if (code < 0) {
+            return lookup(code);
+        }
+        if (code >= NUMBER_CACHE) {
+            return pad(new StringBuilder(10), code, NUMBER_DIGITS).toString();
+        }
+        String id = NUMBERS[code];
+        if (id == null) {
+            id = pad(new StringBuilder(NUMBER_DIGITS), code, NUMBER_DIGITS).toString();
+            NUMBERS[code] = id;
+        }
+        return id;
+    }
+
+    /**
+     * Returns the one shared instance of a string, so values repeated across
+     * many records, such as flower categories, are kept once.
+     *
+     * @param s The string, or null.
+     * @return The shared instance.
+     */
+    public static String intern(String s) {
+        if (s == null) {
+            return null;
+        }
+        String shared = INTERNED.putIfAbsent(s, s);
+        return shared == null ? s : shared;
+    }
+
+    private static int register(String s) {
+        if (s == null) {
+            return NULL;
+        }
+        Integer code = CODES.get(s);
+        if (code == null) {
+            synchronized (STRINGS) {
+                code = CODES.get(s);
+                if (code == null) {
+                    STRINGS.add(s);
+                    code = -STRINGS.size();
+                    CODES.put(s, code);
+                }
+            }
+        }
+        return code;
+    }
+
+    private static String lookup(int code) {
+        if (code == NULL) {
+            return null;
+        }
+        synchronized (STRINGS) {
+            return STRINGS.get(-code - 1);
+        }
+    }
+
+    /**
+     * Parses the digits of a string from a position to its end.
+     *
+     * @return The number, or -1 if a character is not a digit.
+     */
+    private static int digits(String s, int from) {
+        int n = 0;
+        for (int i = from; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            n = n * 10 + (c - '0');
+        }
+        return n;
+    }
+
+    private static StringBuilder pad(StringBuilder sb, int n, int digits) {
+        for (int p = pow10(digits - 1); p > 1 && n < p; p /= 10) {
+            sb.append('0');
+        }
+        return sb.append(n);
+    }
+
+    private static int pow10(int n) {
+        int p = 1;
+        for (int i = 0; i < n; i++) {
+            p *= 10;
+        }
+        return p;
+    }
+}
@@ -0,0 +1,80 @@
+package Tools;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * This class converts between dates and epoch days, the number of days since
+ * 01/01/1970. The model keeps its dates as epoch days, so a date costs four
+ * bytes and comparing two dates is comparing two ints. A missing date is
+ * NONE, which sorts before every other day.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class Days {
+
+    /**
+     * The epoch day of a missing date.
+     */
+    public static final int NONE = Integer.MIN_VALUE;
+
+    /**
+     * Returns the epoch day of a date.
+     *
+     * @param date The date, or null.
+     * @return The epoch day, or NONE if the date is null.
+     */
+    public static int of(LocalDate date) {
+        return date == null ? NONE : (int) date.toEpochDay();
+    }
+
+    /**
+     * Returns the date of an epoch day.
+     *
+     * @param day The epoch day.
+     * @return The date, or null if the day is NONE.
+     */
+    public static LocalDate toLocalDate(int day) {
+        return day == NONE ? null : LocalDate.ofEpochDay(day);
+    }
+
+    /**
+     * Returns the local day, in the default time zone, of a time in
+     * milliseconds since the epoch. Dates were stored as such times before
+     * they were stored as epoch days.
+     *
+     * @param time The time, or StoreFile.NO_DATE.
+     * @return The epoch day, or NONE if the time is StoreFile.NO_DATE.
+     */
+    public static int ofMillis(long time) {
+        if (time == StoreFile.NO_DATE) {
+            return NONE;
+        }
+        return (int) Instant.ofEpochMilli(time).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Returns the local day, in the default time zone, of a Date.
+     *
+     * @param date The date, or null.
+     * @return The epoch day, or NONE if the date is null.
+     */
+    public static int ofDate(Date date) {
+        return date == null ? NONE : ofMillis(date.getTime());
+    }
+
+    /**
+     * Returns the start of an epoch day in the default time zone, as a Date.
+     *
+     * @param day The epoch day.
+     * @return The date, or null if the day is NONE.
+     */
+    public static Date toDate(int day) {
+        if (day == NONE) {
+            return null;
+        }
+        return Date.from(LocalDate.ofEpochDay(day).atStartOfDay(ZoneId.systemDefault()).toInstant());
+    }
+}
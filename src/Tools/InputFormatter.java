@@ -1,20 +1,19 @@
 package Tools;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.LocalDate;
 import java.util.Scanner;
-import java.util.regex.Pattern;
+import java.util.function.Predicate;
 
 /**
- * Provides methods for validating user input.
+ * Provides methods for validating user input. The rules themselves are in
+ * Validator, so the prompts check input the same way as the bulk import and
+ * the HTTP API.
  *
  * @author Nguyen Truong Tho
  */
 public class InputFormatter {
 
     private static final Scanner input = new Scanner(System.in);
-    private static final String dateFormat = "^(0[1-9]|[12][0-9]|3[01])[- /.](0[1-9]|1[012])[- /.](19|20)[0-9]{2,2}$";
 
     /**
      * Method for inputting an integer number within a specified range.
@@ -179,7 +178,7 @@ public class InputFormatter {
 
     /**
      * Method for inputting a string that matches a specified format using
-     * regular expression.
+     * regular expression. The expression is compiled once and cached.
      *
      * @param msg The message prompt for the input.
      * @param format The desired format of the string.
@@ -187,14 +186,26 @@ public class InputFormatter {
      * @return The user's input string.
      */
     public static String getString(String msg, String format, String regex) {
+        return getString(msg, format, Validator.pattern(regex).asPredicate());
+    }
+
+    /**
+     * Method for inputting a string that passes a rule, such as one of the
+     * rules of Validator.
+     *
+     * @param msg The message prompt for the input.
+     * @param format The desired format of the string.
+     * @param rule The rule the string must pass.
+     * @return The user's input string.
+     */
+    public static String getString(String msg, String format, Predicate<String> rule) {
         boolean flag = true;
         String str = null;
         while (flag) {
             try {
                 System.out.print(msg);
                 str = input.nextLine();
-                Pattern pt = Pattern.compile(regex);
-                if (!pt.matcher(str).find()) {
+                if (!rule.test(str)) {
                     throw new Exception();
                 } else {
                     flag = false;
@@ -254,8 +265,7 @@ public class InputFormatter {
             try {
                 System.out.print(msg);
                 phone = input.nextLine();
-                Pattern pt = Pattern.compile("^0[1-9]{1,1}[0-9]{8,8}$");
-                if (!pt.matcher(phone).find()) {
+                if (!Validator.isPhone(phone)) {
                     throw new Exception();
                 } else {
                     flag = false;
@@ -296,54 +306,45 @@ public class InputFormatter {
      *
      * @param msg The message to display for input.
      * @return The user's input for the date.
-     * @throws java.text.ParseException
      */
-    public static Date getDate(String msg) throws ParseException {
+    public static LocalDate getDate(String msg) {
         boolean flag = true;
-        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyy");
-        String date = null;
+        LocalDate date = null;
         while (flag) {
             try {
                 System.out.print(msg);
-                date = input.nextLine();
-                Pattern pt = Pattern.compile(dateFormat);
-                if (!pt.matcher(date).find() || !isValidDate(date)) {
-                    throw new Exception("the date must be in dd/mm/yyyy format!");
+                date = Validator.parseDate(input.nextLine());
+                if (date == null) {
+                    throw new Exception(Validator.DATE_FORMAT);
                 } else {
-
                     flag = false;
                 }
             } catch (Exception ex) {
                 System.out.println("Wrong date format, " + ex.getMessage());
             }
         }
-        return sdf.parse(date);
+        return date;
     }
 
     /**
-     * Retrieves a Date object after validating and parsing the user input.
+     * Retrieves a LocalDate object after validating and parsing the user input.
      *
      * @param msg The message to prompt the user for a date.
      * @param datebefore The date to compare the user input with.
-     * @return The Date object representing the user's chosen date.
-     * @throws ParseException If the user input cannot be parsed as a valid
-     * date.
+     * @return The LocalDate object representing the user's chosen date.
      */
-    public static Date getDateAfter(String msg, Date datebefore) throws ParseException {
-        String date = null;
-        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyy");
+    public static LocalDate getDateAfter(String msg, LocalDate datebefore) {
+        LocalDate date = null;
         boolean flag = true;
         while (flag) {
             try {
                 System.out.print(msg);
-                date = input.nextLine();
-                Pattern pt = Pattern.compile(dateFormat);
-
-                if (!pt.matcher(date).find() || !isValidDate(date)) {
-                    throw new Exception("the date must be in dd/mm/yyyy format!");
+                date = Validator.parseDate(input.nextLine());
+                if (date == null) {
+                    throw new Exception(Validator.DATE_FORMAT);
                 } else {
-                    if (sdf.parse(date).compareTo(datebefore) < 0) {
-                        throw new Exception("your input date must be after " + sdf.format(datebefore));
+                    if (date.isBefore(datebefore)) {
+                        throw new Exception("your input date must be after " + RowFormatter.formatDate(Days.of(datebefore)));
                     }
                     flag = false;
                 }
@@ -351,7 +352,7 @@ public class InputFormatter {
                 System.out.println("Wrong date format, " + ex.getMessage());
             }
         }
-        return sdf.parse(date);
+        return date;
     }
 
     /**
@@ -361,22 +362,7 @@ public class InputFormatter {
      * @return True if the date is valid, false otherwise.
      */
     public static boolean isValidDate(String date) {
-        String[] split = date.split("[-/. ]");
-        int day = Integer.parseInt(split[0]);
-        int month = Integer.parseInt(split[1]);
-        int year = Integer.parseInt(split[2]);
-        int maxDay = 30;
-        if (month == 1 || month == 3 || month == 5 || month == 7 || month == 8 || month == 10 || month == 12) {
-            maxDay = 31;
-        }
-        if (month == 2) {
-            if (year % 400 == 0 || (year % 4 == 0 && year % 100 != 0)) {
-                maxDay = 29;
-            } else {
-                maxDay = 28;
-            }
-        }
-        return day <= maxDay;
+        return Validator.isDate(date);
     }
 
     /**
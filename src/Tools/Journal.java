@@ -0,0 +1,459 @@
+package Tools;
+
+import Model.Flower;
+import Model.Order;
+import Model.OrderDetail;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * This class provides an append-only journal of the changes made to flowers
+ * and orders.
+ * <p>
+ * Every entry is written as its payload length, a CRC32 of the payload and
+ * the payload itself (operation code followed by the record). Entries are
+ * full records, so replaying an entry more than once gives the same result.
+ * A torn or corrupt tail left by a crash is cut off when the journal is
+ * replayed. Dates are written as epoch days, flagged in the operation code;
+ * entries written before that hold milliseconds and are still replayed.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class Journal {
+
+    public static final byte ADD_FLOWER = 1;
+    public static final byte UPDATE_FLOWER = 2;
+    public static final byte DELETE_FLOWER = 3;
+    public static final byte ADD_ORDER = 4;
+    private static final int DAYS = 0x10;
+    private final Path path;
+    private final Path rotated;
+    private FileChannel ch;
+    private volatile int entries;
+    private int rotatedEntries;
+
+    /**
+     * Handles the entries of a journal while it is replayed.
+     */
+    public interface Handler {
+
+        /**
+         * Applies an added flower.
+         *
+         * @param f The added flower.
+         */
+        void addFlower(Flower f);
+
+        /**
+         * Applies an updated flower.
+         *
+         * @param f The updated flower.
+         */
+        void updateFlower(Flower f);
+
+        /**
+         * Applies a deleted flower.
+         *
+         * @param flowerId The ID of the deleted flower.
+         */
+        void deleteFlower(String flowerId);
+
+        /**
+         * Applies an added order.
+         *
+         * @param o The added order.
+         */
+        void addOrder(Order o);
+    }
+
+    /**
+     * Constructor for the Journal class.
+     *
+     * @param fileName The name of the journal file.
+     */
+    public Journal(String fileName) {
+        this.path = Paths.get(fileName);
+        this.rotated = Paths.get(fileName + ".old");
+    }
+
+    /**
+     * Checks if there are changes in the journal that are not folded into
+     * the data files yet.
+     *
+     * @return True if the journal has entries, false otherwise.
+     */
+    public boolean hasEntries() {
+        File f = path.toFile();
+        return entries > 0 || (f.exists() && f.length() > 0) || rotated.toFile().exists();
+    }
+
+    /**
+     * Returns the number of entries appended since the journal was last
+     * rotated or truncated.
+     *
+     * @return The number of entries.
+     */
+    public int getEntries() {
+        return entries;
+    }
+
+    /**
+     * Returns the size of the current journal file.
+     *
+     * @return The size in bytes.
+     */
+    public long size() {
+        return path.toFile().length();
+    }
+
+    /**
+     * Checks if a rotated journal is waiting to be folded into the data
+     * files.
+     *
+     * @return True if there is a rotated journal, false otherwise.
+     */
+    public boolean isRotated() {
+        return rotated.toFile().exists();
+    }
+
+    /**
+     * Records an added flower.
+     *
+     * @param f The added flower.
+     */
+    public void logAddFlower(Flower f) {
+        append(ADD_FLOWER, f);
+    }
+
+    /**
+     * Records the new state of an updated flower.
+     *
+     * @param f The updated flower.
+     */
+    public void logUpdateFlower(Flower f) {
+        append(UPDATE_FLOWER, f);
+    }
+
+    /**
+     * Records a deleted flower.
+     *
+     * @param flowerId The ID of the deleted flower.
+     */
+    public void logDeleteFlower(String flowerId) {
+        append(DELETE_FLOWER, flowerId);
+    }
+
+    /**
+     * Records an added order.
+     *
+     * @param o The added order.
+     */
+    public void logAddOrder(Order o) {
+        append(ADD_ORDER, o);
+    }
+
+    /**
+     * Appends an entry to the journal.
+     */
+    private synchronized void append(byte op, Object record) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0);
+            out.writeInt(0);
+            out.writeByte(op | DAYS);
+            switch (op) {
+                case ADD_FLOWER:
+                case UPDATE_FLOWER:
+                    writeFlower(out, (Flower) record);
+                    break;
+                case DELETE_FLOWER:
+                    writeString(out, (String) record);
+                    break;
+                case ADD_ORDER:
+                    writeOrder(out, (Order) record);
+                    break;
+            }
+            ByteBuffer buf = ByteBuffer.wrap(bytes.toByteArray());
+            CRC32 crc = new CRC32();
+            crc.update(buf.array(), 8, buf.limit() - 8);
+            buf.putInt(0, buf.limit() - 8);
+            buf.putInt(4, (int) crc.getValue());
+            FileChannel channel = channel();
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            entries++;
+        } catch (IOException ex) {
+            System.out.println(ex);
+        }
+    }
+
+    /**
+     * Forces the journal to the storage device. The journal is not locked
+     * while the device is written, so entries can be appended meanwhile. A
+     * journal rotated or closed meanwhile is not forced.
+     */
+    public void sync() {
+        FileChannel channel;
+        synchronized (this) {
+            channel = ch;
+        }
+        if (channel != null) {
+            try {
+                channel.force(false);
+            } catch (ClosedChannelException ex) {
+                // Rotated or closed by another thread.
+            } catch (IOException ex) {
+                System.out.println(ex);
+            }
+        }
+    }
+
+    /**
+     * Closes the current journal file and renames it so that new entries go
+     * to a fresh file while the rotated one is folded into the data files.
+     *
+     * @return True if the journal has been rotated, false otherwise.
+     */
+    public synchronized boolean rotate() {
+        if (isRotated()) {
+            return false;
+        }
+        try {
+            close();
+            if (path.toFile().exists()) {
+                Files.move(path, rotated, StandardCopyOption.ATOMIC_MOVE);
+            }
+            rotatedEntries = entries;
+            entries = 0;
+            return true;
+        } catch (IOException ex) {
+            System.out.println(ex);
+            return false;
+        }
+    }
+
+    /**
+     * Deletes the rotated journal once it has been folded into the data
+     * files.
+     */
+    public synchronized void deleteRotated() {
+        try {
+            Files.deleteIfExists(rotated);
+            rotatedEntries = 0;
+        } catch (IOException ex) {
+            System.out.println(ex);
+        }
+    }
+
+    /**
+     * Puts the rotated journal back in front of the current journal, when its
+     * changes could not be folded into the data files or have been replayed,
+     * so the journal can be rotated again and no entry is lost. The current
+     * entries are appended to the rotated journal, which then replaces the
+     * current one; if that is cut short, both files are replayed and the
+     * entries in both are applied twice, which gives the same result.
+     */
+    public synchronized void restoreRotated() {
+        if (!isRotated()) {
+            return;
+        }
+        try {
+            close();
+            if (path.toFile().exists()) {
+                try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ);
+                        FileChannel out = FileChannel.open(rotated, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    long size = in.size();
+                    for (long position = 0; position < size;) {
+                        position += in.transferTo(position, size - position, out);
+                    }
+                    out.force(false);
+                }
+            }
+            Files.move(rotated, path, StandardCopyOption.ATOMIC_MOVE);
+            entries += rotatedEntries;
+            rotatedEntries = 0;
+        } catch (IOException ex) {
+            System.out.println(ex);
+        }
+    }
+
+    /**
+     * Discards every entry of the journal, including a rotated journal.
+     */
+    public synchronized void truncate() {
+        try {
+            close();
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(rotated);
+            entries = 0;
+            rotatedEntries = 0;
+        } catch (IOException ex) {
+            System.out.println(ex);
+        }
+    }
+
+    /**
+     * Closes the journal file.
+     */
+    public synchronized void close() {
+        if (ch != null) {
+            try {
+                ch.close();
+            } catch (IOException ex) {
+                System.out.println(ex);
+            }
+            ch = null;
+        }
+    }
+
+    /**
+     * Replays the rotated journal, if there is one, then the current journal.
+     *
+     * @param handler The handler applying the entries.
+     * @return The number of entries replayed.
+     */
+    public synchronized int replay(Handler handler) {
+        int count = 0;
+        try {
+            close();
+            count += replay(rotated, handler);
+            count += replay(path, handler);
+            entries = 0;
+            rotatedEntries = 0;
+        } catch (IOException ex) {
+            System.out.println(ex);
+        }
+        return count;
+    }
+
+    private int replay(Path file, Handler handler) throws IOException {
+        if (!file.toFile().exists()) {
+            return 0;
+        }
+        byte[] data = Files.readAllBytes(file);
+        ByteBuffer buf = ByteBuffer.wrap(data);
+        int count = 0;
+        CRC32 crc = new CRC32();
+        while (buf.remaining() >= 8) {
+            int start = buf.position();
+            int length = buf.getInt();
+            int checksum = buf.getInt();
+            if (length <= 0 || length > buf.remaining()) {
+                buf.position(start);
+                break;
+            }
+            crc.reset();
+            crc.update(data, buf.position(), length);
+            if ((int) crc.getValue() != checksum) {
+                buf.position(start);
+                break;
+            }
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, buf.position(), length));
+            buf.position(buf.position() + length);
+            int op = in.readByte();
+            boolean days = (op & DAYS) != 0;
+            switch (op & ~DAYS) {
+                case ADD_FLOWER:
+                    handler.addFlower(readFlower(in, days));
+                    break;
+                case UPDATE_FLOWER:
+                    handler.updateFlower(readFlower(in, days));
+                    break;
+                case DELETE_FLOWER:
+                    handler.deleteFlower(readString(in));
+                    break;
+                case ADD_ORDER:
+                    handler.addOrder(readOrder(in, days));
+                    break;
+            }
+            count++;
+        }
+        if (buf.position() < data.length) {
+            System.out.println("Journal " + file + " is damaged after " + count + " entries, the rest is discarded.");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(buf.position());
+            }
+        }
+        return count;
+    }
+
+    private FileChannel channel() throws IOException {
+        if (ch == null) {
+            ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return ch;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        out.writeBoolean(s != null);
+        if (s != null) {
+            out.writeUTF(s);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Reads a date as an epoch day, from the milliseconds of an entry written
+     * before dates were epoch days if days is false.
+     */
+    private static int readDay(DataInputStream in, boolean days) throws IOException {
+        return days ? in.readInt() : Days.ofMillis(in.readLong());
+    }
+
+    private static void writeFlower(DataOutputStream out, Flower f) throws IOException {
+        writeString(out, f.getFlowerId());
+        writeString(out, f.getName());
+        out.writeInt(f.getImportDay());
+        out.writeDouble(f.getUnitPrice());
+        writeString(out, f.getCategory());
+    }
+
+    private static Flower readFlower(DataInputStream in, boolean days) throws IOException {
+        return new Flower(readString(in), readString(in), readDay(in, days), in.readDouble(), readString(in));
+    }
+
+    private static void writeOrder(DataOutputStream out, Order o) throws IOException {
+        writeString(out, o.getOrderId());
+        out.writeInt(o.getOrderDay());
+        writeString(out, o.getCustomerName());
+        out.writeInt(o.getOrderDetail().size());
+        for (OrderDetail d : o.getOrderDetail()) {
+            writeString(out, d.getOrderDetailId());
+            writeString(out, d.getFlowerId());
+            out.writeInt(d.getQuantity());
+            out.writeDouble(d.getFlowerCost());
+        }
+    }
+
+    private static Order readOrder(DataInputStream in, boolean days) throws IOException {
+        String orderId = readString(in);
+        int orderDay = readDay(in, days);
+        String customerName = readString(in);
+        int n = in.readInt();
+        List<OrderDetail> orderDetail = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            orderDetail.add(new OrderDetail(readString(in), readString(in), in.readInt(), in.readDouble()));
+        }
+        return new Order(orderId, orderDay, customerName, orderDetail);
+    }
+}
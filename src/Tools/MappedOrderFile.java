@@ -0,0 +1,424 @@
+package Tools;
+
+import Model.Order;
+import Model.OrderDetail;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class represents a read-only, memory-mapped view of an order file in
+ * the binary storage format. Only the segment headers are read when the file
+ * is opened; an order and its details are decoded when they are accessed.
+ * The view can be read from several threads at once.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class MappedOrderFile extends AbstractList<Order> implements Closeable {
+
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_SIZE = 1L << CHUNK_BITS;
+    private final FileChannel ch;
+    private final MappedByteBuffer[] chunks;
+    private final long[] stringsOffset;
+    private final long[] indexOffset;
+    private final int[] stringCount;
+    private final int[] firstRecord;
+    private final String[][] strings;
+    private final int size;
+    private final int dateSize;
+
+    /**
+     * Maps an order file into memory.
+     *
+     * @param fileName The name of the file.
+     * @throws IOException If the file cannot be mapped or is not an order
+     * file in the binary storage format.
+     */
+    public MappedOrderFile(String fileName) throws IOException {
+        this(fileName, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Maps the first segments of an order file into memory. Segments appended
+     * after them are not visible, so a file can keep growing while it is
+     * mapped.
+     *
+     * @param fileName The name of the file.
+     * @param maxSegments The maximum number of segments to map.
+     * @throws IOException If the file cannot be mapped or is not an order
+     * file in the binary storage format.
+     */
+    public MappedOrderFile(String fileName, int maxSegments) throws IOException {
+        ch = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+        try {
+            long length = ch.size();
+            if (length < StoreFile.HEADER_SIZE) {
+                throw new IOException(fileName + " is not a store file");
+            }
+            chunks = new MappedByteBuffer[(int) ((length + CHUNK_SIZE - 1) >>> CHUNK_BITS)];
+            for (int i = 0; i < chunks.length; i++) {
+                long start = (long) i << CHUNK_BITS;
+                chunks[i] = ch.map(FileChannel.MapMode.READ_ONLY, start, Math.min(CHUNK_SIZE, length - start));
+            }
+            int segments = Math.min(StoreFile.readHeader(chunks[0], StoreFile.ORDER, fileName), maxSegments);
+            dateSize = StoreFile.dateSize(chunks[0].getShort(4));
+            stringsOffset = new long[segments];
+            indexOffset = new long[segments];
+            stringCount = new int[segments];
+            firstRecord = new int[segments + 1];
+            strings = new String[segments][];
+            long pos = StoreFile.HEADER_SIZE;
+            for (int s = 0; s < segments; s++) {
+                firstRecord[s + 1] = firstRecord[s] + getInt(pos);
+                stringCount[s] = getInt(pos + 4);
+                stringsOffset[s] = getLong(pos + 8);
+                indexOffset[s] = getLong(pos + 16);
+                pos = getLong(pos + 24);
+            }
+            size = firstRecord[segments];
+        } catch (IOException | RuntimeException ex) {
+            ch.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the number of orders in the file.
+     *
+     * @return The number of orders.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Decodes the order at the specified position.
+     *
+     * @param i The position of the order.
+     * @return The decoded order.
+     */
+    @Override
+    public Order get(int i) {
+        int s = segmentOf(i);
+        long pos = recordOffset(s, i);
+        int details = getInt(pos + 8 + dateSize);
+        List<OrderDetail> orderDetail = new ArrayList<>(details);
+        long d = pos + 12 + dateSize;
+        for (int j = 0; j < details; j++, d += StoreFile.DETAIL_SIZE) {
+            orderDetail.add(new OrderDetail(string(s, getInt(d)), string(s, getInt(d + 4)),
+                    getInt(d + 8), getDouble(d + 12)));
+        }
+        return new Order(string(s, getInt(pos)), getDay(pos + 4), string(s, getInt(pos + 4 + dateSize)), orderDetail);
+    }
+
+    /**
+     * Retrieves the order ID of the order at the specified position without
+     * decoding the order.
+     *
+     * @param i The position of the order.
+     * @return The order ID.
+     */
+    public String getOrderId(int i) {
+        int s = segmentOf(i);
+        return string(s, getInt(recordOffset(s, i)));
+    }
+
+    /**
+     * Retrieves the order date of the order at the specified position without
+     * decoding the order.
+     *
+     * @param i The position of the order.
+     * @return The order date as an epoch day, or Days.NONE.
+     */
+    public int getOrderDay(int i) {
+        return getDay(recordOffset(segmentOf(i), i) + 4);
+    }
+
+    /**
+     * Retrieves the customer name of the order at the specified position
+     * without decoding the order.
+     *
+     * @param i The position of the order.
+     * @return The customer name.
+     */
+    public String getCustomerName(int i) {
+        int s = segmentOf(i);
+        return string(s, getInt(recordOffset(s, i) + 4 + dateSize));
+    }
+
+    /**
+     * Adds up the detail costs of the order at the specified position without
+     * decoding the order, in the same order as the Order constructor does.
+     *
+     * @param i The position of the order.
+     * @return The order total.
+     */
+    public double getOrderTotal(int i) {
+        long pos = recordOffset(segmentOf(i), i);
+        int details = getInt(pos + 8 + dateSize);
+        double cost = 0;
+        long d = pos + 12 + dateSize;
+        for (int j = 0; j < details; j++, d += StoreFile.DETAIL_SIZE) {
+            cost += getDouble(d + 12);
+        }
+        return cost;
+    }
+
+    /**
+     * Adds up the detail quantities of the order at the specified position
+     * without decoding the order.
+     *
+     * @param i The position of the order.
+     * @return The total quantity of flowers in the order.
+     */
+    public int getOrderQuantity(int i) {
+        long pos = recordOffset(segmentOf(i), i);
+        int details = getInt(pos + 8 + dateSize);
+        int quantity = 0;
+        long d = pos + 12 + dateSize;
+        for (int j = 0; j < details; j++, d += StoreFile.DETAIL_SIZE) {
+            quantity += getInt(d + 8);
+        }
+        return quantity;
+    }
+
+    /**
+     * Finds the orders placed within a date range. Only the order dates are
+     * read while scanning; matching orders are decoded.
+     *
+     * @param startDay The first epoch day of the range (inclusive).
+     * @param endDay The last epoch day of the range (inclusive).
+     * @return The list of orders within the date range.
+     */
+    public List<Order> findByDate(int startDay, int endDay) {
+        List<Order> list = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            int day = getOrderDay(i);
+            if (day != Days.NONE && day >= startDay && day <= endDay) {
+                list.add(get(i));
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Checks if a flower is included in any order, comparing string table
+     * indexes instead of decoding the details.
+     *
+     * @param flowerId The flower ID to check.
+     * @return True if the flower is included in any order, false otherwise.
+     */
+    public boolean containsFlower(String flowerId) {
+        for (int s = 0; s < stringCount.length; s++) {
+            int id = indexOf(s, flowerId);
+            if (id < 0) {
+                continue;
+            }
+            for (int i = firstRecord[s]; i < firstRecord[s + 1]; i++) {
+                long pos = recordOffset(s, i);
+                int details = getInt(pos + 8 + dateSize);
+                long d = pos + 12 + dateSize;
+                for (int j = 0; j < details; j++, d += StoreFile.DETAIL_SIZE) {
+                    if (getInt(d + 4) == id) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the orders that include a flower, comparing string table indexes
+     * and decoding only the matching orders.
+     *
+     * @param flowerId The flower ID to search for.
+     * @return The list of orders including the flower.
+     */
+    public List<Order> findByFlower(String flowerId) {
+        List<Order> list = new ArrayList<>();
+        for (int s = 0; s < stringCount.length; s++) {
+            int id = indexOf(s, flowerId);
+            if (id < 0) {
+                continue;
+            }
+            for (int i = firstRecord[s]; i < firstRecord[s + 1]; i++) {
+                long pos = recordOffset(s, i);
+                int details = getInt(pos + 8 + dateSize);
+                long d = pos + 12 + dateSize;
+                for (int j = 0; j < details; j++, d += StoreFile.DETAIL_SIZE) {
+                    if (getInt(d + 4) == id) {
+                        list.add(get(i));
+                        break;
+                    }
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Collects the IDs of the flowers included in the orders. The details
+     * are scanned by string table index; each ID is decoded once.
+     *
+     * @return The set of flower IDs.
+     */
+    public Set<String> flowerIds() {
+        Set<String> ids = new HashSet<>();
+        for (int s = 0; s < stringCount.length; s++) {
+            BitSet seen = new BitSet(stringCount[s]);
+            for (int i = firstRecord[s]; i < firstRecord[s + 1]; i++) {
+                long pos = recordOffset(s, i);
+                int details = getInt(pos + 8 + dateSize);
+                long d = pos + 12 + dateSize;
+                for (int j = 0; j < details; j++, d += StoreFile.DETAIL_SIZE) {
+                    int id = getInt(d + 4);
+                    if (id >= 0 && !seen.get(id)) {
+                        seen.set(id);
+                        ids.add(string(s, id));
+                    }
+                }
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Closes the file. The mapping itself cannot be released explicitly and
+     * stays valid until the view is garbage collected; until then some
+     * platforms, such as Windows, refuse to delete the file.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        ch.close();
+    }
+
+    private int segmentOf(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+        int lo = 0;
+        int hi = firstRecord.length - 2;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (firstRecord[mid] <= i) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    private long recordOffset(int s, int i) {
+        return getLong(indexOffset[s] + 8L * (i - firstRecord[s]));
+    }
+
+    /**
+     * Decodes a string of a segment's string table, caching it for later use.
+     */
+    private String string(int s, int id) {
+        if (id < 0) {
+            return null;
+        }
+        if (strings[s] == null) {
+            strings[s] = new String[stringCount[s]];
+        }
+        String str = strings[s][id];
+        if (str == null) {
+            long from = id == 0 ? 0 : getInt(stringsOffset[s] + 4L * (id - 1));
+            int to = getInt(stringsOffset[s] + 4L * id);
+            byte[] b = new byte[(int) (to - from)];
+            long blob = stringsOffset[s] + 4L * stringCount[s] + from;
+            for (int k = 0; k < b.length; k++) {
+                b[k] = getByte(blob + k);
+            }
+            str = new String(b, StandardCharsets.UTF_8);
+            strings[s][id] = str;
+        }
+        return str;
+    }
+
+    /**
+     * Finds the index of a string in a segment's string table.
+     */
+    private int indexOf(int s, String str) {
+        byte[] b = str.getBytes(StandardCharsets.UTF_8);
+        long blob = stringsOffset[s] + 4L * stringCount[s];
+        int from = 0;
+        for (int id = 0; id < stringCount[s]; id++) {
+            int to = getInt(stringsOffset[s] + 4L * id);
+            if (to - from == b.length) {
+                int k = 0;
+                while (k < b.length && getByte(blob + from + k) == b[k]) {
+                    k++;
+                }
+                if (k == b.length) {
+                    return id;
+                }
+            }
+            from = to;
+        }
+        return -1;
+    }
+
+    private byte getByte(long pos) {
+        return chunks[(int) (pos >>> CHUNK_BITS)].get((int) (pos & (CHUNK_SIZE - 1)));
+    }
+
+    private int getInt(long pos) {
+        ByteBuffer chunk = chunks[(int) (pos >>> CHUNK_BITS)];
+        int off = (int) (pos & (CHUNK_SIZE - 1));
+        if (off + 4 <= chunk.limit()) {
+            return chunk.getInt(off);
+        }
+        return (int) getBytes(pos, 4);
+    }
+
+    private long getLong(long pos) {
+        ByteBuffer chunk = chunks[(int) (pos >>> CHUNK_BITS)];
+        int off = (int) (pos & (CHUNK_SIZE - 1));
+        if (off + 8 <= chunk.limit()) {
+            return chunk.getLong(off);
+        }
+        return getBytes(pos, 8);
+    }
+
+    private double getDouble(long pos) {
+        return Double.longBitsToDouble(getLong(pos));
+    }
+
+    /**
+     * Reads a date field as an epoch day, converting the milliseconds of a
+     * version 1 file.
+     */
+    private int getDay(long pos) {
+        return dateSize == 8 ? Days.ofMillis(getLong(pos)) : getInt(pos);
+    }
+
+    /**
+     * Reads a big-endian number that straddles two chunks.
+     */
+    private long getBytes(long pos, int n) {
+        long v = 0;
+        for (int k = 0; k < n; k++) {
+            v = (v << 8) | (getByte(pos + k) & 0xFF);
+        }
+        return v;
+    }
+}
@@ -0,0 +1,772 @@
+package Tools;
+
+import Model.Order;
+import Model.OrderDetail;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+
+/**
+ * This class stores orders partitioned by order date, one partition per
+ * period of a configurable number of months. Each partition is made of order
+ * files in the binary storage format, and a small text manifest lists the
+ * partitions with the date range and the files of each.
+ * <p>
+ * A partition stays open until its period is over; new orders of an open
+ * partition are appended to its latest file. Files of a closed partition are
+ * never modified: orders dated in a closed period are written to a new file of
+ * the partition. The manifest is replaced atomically after the files have been
+ * written, so a crash leaves the previous manifest in place, and the files and
+ * segments it does not list are ignored.
+ * <p>
+ * An opened archive is a read-only view of the partitions listed in the
+ * manifest when it was opened. A partition file is only mapped into memory
+ * when a query touches it, and a date range query only touches the partitions
+ * whose dates overlap the range. The manifest also lists the flowers ordered in
+ * each partition, so a flower query only touches the partitions that include
+ * the flower.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class OrderArchive extends AbstractList<Order> implements Closeable {
+
+    public static final String MANIFEST = "manifest";
+    private static final String FORMAT = "order-archive 2";
+    private static final String FORMAT_V1 = "order-archive 1";
+    private static final String UNDATED = "undated";
+    private static final int SEGMENT_LIMIT = 32;
+    private final String dir;
+    private final int months;
+    private final long lastOrderId;
+    private final Partition[] partitions;
+    private final Partition[] filePartition;
+    private final int[] fileIndex;
+    private final int[] firstRecord;
+    private final Map<Integer, int[]> sorted = new HashMap<>();
+
+    /**
+     * A partition as listed in the manifest.
+     */
+    private static class Partition {
+
+        private final String key;
+        private int minDay;
+        private int maxDay;
+        private final List<String> files = new ArrayList<>();
+        private final List<Integer> segments = new ArrayList<>();
+        private final List<Integer> counts = new ArrayList<>();
+        // the IDs of the flowers ordered, or null if the manifest does not list them
+        private Set<String> flowers;
+        private MappedOrderFile[] mapped;
+
+        Partition(String key) {
+            this.key = key;
+        }
+    }
+
+    private OrderArchive(String dir, int months, long lastOrderId, List<Partition> list) {
+        this.dir = dir;
+        this.months = months;
+        this.lastOrderId = lastOrderId;
+        this.partitions = list.toArray(new Partition[list.size()]);
+        int files = 0;
+        for (Partition p : partitions) {
+            p.mapped = new MappedOrderFile[p.files.size()];
+            files += p.files.size();
+        }
+        this.filePartition = new Partition[files];
+        this.fileIndex = new int[files];
+        this.firstRecord = new int[files + 1];
+        int k = 0;
+        for (Partition p : partitions) {
+            for (int f = 0; f < p.files.size(); f++, k++) {
+                filePartition[k] = p;
+                fileIndex[k] = f;
+                firstRecord[k + 1] = firstRecord[k] + p.counts.get(f);
+            }
+        }
+    }
+
+    /**
+     * Checks if a directory holds an order archive.
+     *
+     * @param dir The directory of the archive.
+     * @return True if the directory has a manifest, false otherwise.
+     */
+    public static boolean exists(String dir) {
+        return new File(dir, MANIFEST).exists();
+    }
+
+    /**
+     * Opens the archive of a directory. A directory without a manifest opens
+     * as an empty archive.
+     *
+     * @param dir The directory of the archive.
+     * @return The archive.
+     * @throws IOException If the manifest cannot be read.
+     */
+    public static OrderArchive open(String dir) throws IOException {
+        return readManifest(dir, 1);
+    }
+
+    /**
+     * Returns the number of months of a partition.
+     *
+     * @return The number of months.
+     */
+    public int getMonths() {
+        return months;
+    }
+
+    /**
+     * Returns the number of partitions.
+     *
+     * @return The number of partitions.
+     */
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    /**
+     * Returns the highest order number given out when the archive was last
+     * written. Every order numbered up to it is in the archive.
+     *
+     * @return The highest order number.
+     */
+    public long getLastOrderId() {
+        return lastOrderId;
+    }
+
+    /**
+     * Returns the number of orders in the archive.
+     *
+     * @return The number of orders.
+     */
+    @Override
+    public int size() {
+        return firstRecord[filePartition.length];
+    }
+
+    /**
+     * Decodes the order at the specified position. Orders are ordered by
+     * partition, then in the order they were written.
+     *
+     * @param i The position of the order.
+     * @return The decoded order.
+     */
+    @Override
+    public Order get(int i) {
+        int k = fileOf(i);
+        return file(filePartition[k], fileIndex[k]).get(i - firstRecord[k]);
+    }
+
+    /**
+     * Retrieves the order ID of the order at the specified position without
+     * decoding the order.
+     *
+     * @param i The position of the order.
+     * @return The order ID.
+     */
+    public String getOrderId(int i) {
+        int k = fileOf(i);
+        return file(filePartition[k], fileIndex[k]).getOrderId(i - firstRecord[k]);
+    }
+
+    /**
+     * Retrieves the order date of the order at the specified position without
+     * decoding the order.
+     *
+     * @param i The position of the order.
+     * @return The order date as an epoch day, or Days.NONE.
+     */
+    public int getOrderDay(int i) {
+        int k = fileOf(i);
+        return file(filePartition[k], fileIndex[k]).getOrderDay(i - firstRecord[k]);
+    }
+
+    /**
+     * Retrieves the customer name of the order at the specified position
+     * without decoding the order.
+     *
+     * @param i The position of the order.
+     * @return The customer name.
+     */
+    public String getCustomerName(int i) {
+        int k = fileOf(i);
+        return file(filePartition[k], fileIndex[k]).getCustomerName(i - firstRecord[k]);
+    }
+
+    /**
+     * Retrieves the total of the order at the specified position without
+     * decoding the order.
+     *
+     * @param i The position of the order.
+     * @return The order total.
+     */
+    public double getOrderTotal(int i) {
+        int k = fileOf(i);
+        return file(filePartition[k], fileIndex[k]).getOrderTotal(i - firstRecord[k]);
+    }
+
+    /**
+     * Retrieves the total quantity of the order at the specified position
+     * without decoding the order.
+     *
+     * @param i The position of the order.
+     * @return The total quantity of flowers in the order.
+     */
+    public int getOrderQuantity(int i) {
+        int k = fileOf(i);
+        return file(filePartition[k], fileIndex[k]).getOrderQuantity(i - firstRecord[k]);
+    }
+
+    /**
+     * Returns the positions of the orders in a sort order. The archive never
+     * changes once opened, so the positions are sorted once per key and kept
+     * for later calls.
+     *
+     * @param key The key the positions are kept under, one per sort order.
+     * @param sort Sorts the positions, called only if the positions have not
+     * been sorted yet.
+     * @return The sorted positions.
+     */
+    public synchronized int[] sortedPositions(int key, Supplier<int[]> sort) {
+        int[] positions = sorted.get(key);
+        if (positions == null) {
+            positions = sort.get();
+            sorted.put(key, positions);
+        }
+        return positions;
+    }
+
+    /**
+     * Finds the orders placed within a date range, reading only the
+     * partitions whose dates overlap the range.
+     *
+     * @param startDay The first epoch day of the range (inclusive).
+     * @param endDay The last epoch day of the range (inclusive).
+     * @return The list of orders within the date range.
+     */
+    public List<Order> findByDate(int startDay, int endDay) {
+        List<Order> list = new ArrayList<>();
+        for (Partition p : partitions) {
+            if (p.minDay <= endDay && p.maxDay >= startDay) {
+                for (int f = 0; f < p.files.size(); f++) {
+                    list.addAll(file(p, f).findByDate(startDay, endDay));
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Returns an iterator over the orders placed within a date range, in
+     * order date order, then in the order they were written. The partitions
+     * are read one at a time as the iterator reaches them, only those whose
+     * dates overlap the range, and an order is decoded when it is returned,
+     * so reading the first orders of a long range reads little of it.
+     *
+     * @param startDay The first epoch day of the range (inclusive).
+     * @param endDay The last epoch day of the range (inclusive).
+     * @return The iterator.
+     */
+    public Iterator<Order> iterateByDate(final int startDay, final int endDay) {
+        return new Iterator<Order>() {
+            private int part;
+            private int file;
+            private int start;
+            // the day of each order found, then its position in the partition
+            private long[] keys = new long[0];
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                while (next == keys.length && part < partitions.length) {
+                    read(partitions[part++]);
+                }
+                return next < keys.length;
+            }
+
+            @Override
+            public Order next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return get(start + (int) keys[next++]);
+            }
+
+            private void read(Partition p) {
+                start = firstRecord[file];
+                file += p.files.size();
+                keys = new long[0];
+                next = 0;
+                if (p.minDay > endDay || p.maxDay < startDay) {
+                    return;
+                }
+                int end = firstRecord[file];
+                long[] found = new long[end - start];
+                int n = 0;
+                for (int i = start; i < end; i++) {
+                    int day = getOrderDay(i);
+                    if (day != Days.NONE && day >= startDay && day <= endDay) {
+                        found[n++] = (long) day << 32 | (i - start);
+                    }
+                }
+                keys = Arrays.copyOf(found, n);
+                Arrays.sort(keys);
+            }
+        };
+    }
+
+    /**
+     * Checks if a flower is included in any order of the archive, looking it
+     * up in the flowers of each partition instead of reading the orders.
+     *
+     * @param flowerId The flower ID to check.
+     * @return True if the flower is included in any order, false otherwise.
+     */
+    public boolean containsFlower(String flowerId) {
+        for (Partition p : partitions) {
+            if (flowers(p).contains(flowerId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Finds the orders that include a flower, reading only the partitions
+     * whose orders include it.
+     *
+     * @param flowerId The flower ID to search for.
+     * @return The list of orders including the flower.
+     */
+    public List<Order> findByFlower(String flowerId) {
+        List<Order> list = new ArrayList<>();
+        for (Partition p : partitions) {
+            if (flowers(p).contains(flowerId)) {
+                for (int f = 0; f < p.files.size(); f++) {
+                    list.addAll(file(p, f).findByFlower(flowerId));
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Closes the partition files that have been mapped. Their mappings are
+     * released when they are garbage collected.
+     *
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        for (Partition p : partitions) {
+            synchronized (p) {
+                for (int f = 0; f < p.mapped.length; f++) {
+                    if (p.mapped[f] != null) {
+                        p.mapped[f].close();
+                        p.mapped[f] = null;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Finds the file holding the order at the specified position.
+     */
+    private int fileOf(int i) {
+        if (i < 0 || i >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size());
+        }
+        int lo = 0;
+        int hi = filePartition.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (firstRecord[mid] <= i) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Returns the IDs of the flowers ordered in a partition. A manifest written
+     * before these were listed does not have them, so they are collected from
+     * the partition files on first use and kept.
+     */
+    private Set<String> flowers(Partition p) {
+        synchronized (p) {
+            if (p.flowers == null) {
+                Set<String> ids = new HashSet<>();
+                for (int f = 0; f < p.files.size(); f++) {
+                    ids.addAll(file(p, f).flowerIds());
+                }
+                p.flowers = ids;
+            }
+            return p.flowers;
+        }
+    }
+
+    /**
+     * Returns a partition file, mapping it on first use. Only the segments
+     * listed in the manifest are mapped. Mapping locks the partition, not the
+     * archive, since sortedPositions holds the archive's lock while the files
+     * are read from several threads.
+     */
+    private MappedOrderFile file(Partition p, int f) {
+        MappedOrderFile file = p.mapped[f];
+        if (file == null) {
+            synchronized (p) {
+                file = p.mapped[f];
+                if (file == null) {
+                    try {
+                        file = new MappedOrderFile(new File(dir, p.files.get(f)).getPath(), p.segments.get(f));
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                    p.mapped[f] = file;
+                }
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Adds orders to the archive of a directory, creating the archive if
+     * there is none. Only the partitions of the orders are written.
+     *
+     * @param dir The directory of the archive.
+     * @param months The number of months of a partition, used if the archive
+     * is created.
+     * @param orders The orders to add.
+     * @param lastOrderId The highest order number given out so far.
+     * @return True if the orders are added successfully, false otherwise.
+     */
+    public static boolean append(String dir, int months, List<Order> orders, long lastOrderId) {
+        try {
+            Files.createDirectories(Paths.get(dir));
+            OrderArchive archive = readManifest(dir, months);
+            deleteUnlisted(dir, Arrays.asList(archive.partitions));
+            TreeMap<String, Partition> map = new TreeMap<>();
+            for (Partition p : archive.partitions) {
+                map.put(p.key, p);
+            }
+            String current = keyOf(Days.of(LocalDate.now()), archive.months);
+            for (Map.Entry<String, List<Order>> e : group(orders, archive.months).entrySet()) {
+                Partition p = map.get(e.getKey());
+                if (p == null) {
+                    p = new Partition(e.getKey());
+                    p.minDay = Integer.MAX_VALUE;
+                    p.maxDay = Integer.MIN_VALUE;
+                    p.flowers = new HashSet<>();
+                    map.put(p.key, p);
+                }
+                int last = p.files.size() - 1;
+                boolean open = p.key.equals(UNDATED) || p.key.compareTo(current) >= 0;
+                // a file of an older format version cannot be appended to
+                if (open && last >= 0 && p.segments.get(last) < SEGMENT_LIMIT
+                        && StoreFile.segmentCount(new File(dir, p.files.get(last)).getPath()) > 0) {
+                    if (!StoreFile.appendOrders(e.getValue(), new File(dir, p.files.get(last)).getPath(), p.segments.get(last))) {
+                        return false;
+                    }
+                    p.segments.set(last, p.segments.get(last) + 1);
+                    p.counts.set(last, p.counts.get(last) + e.getValue().size());
+                } else if (!writeFile(dir, p, e.getValue())) {
+                    return false;
+                }
+                extend(p, e.getValue());
+            }
+            writeManifest(dir, archive.months, Math.max(lastOrderId, archive.lastOrderId), map.values());
+            return true;
+        } catch (IOException ex) {
+            System.out.println(ex);
+            return false;
+        }
+    }
+
+    /**
+     * Replaces the archive of a directory with a list of orders, writing one
+     * new file per partition. The files of the previous archive are deleted;
+     * a file that cannot be deleted yet, such as a file still mapped on
+     * Windows, is deleted by a later save or append.
+     *
+     * @param dir The directory of the archive.
+     * @param months The number of months of a partition.
+     * @param orders The orders of the archive.
+     * @param lastOrderId The highest order number given out so far.
+     * @return True if the orders are saved successfully, false otherwise.
+     */
+    public static boolean save(String dir, int months, List<Order> orders, long lastOrderId) {
+        try {
+            Files.createDirectories(Paths.get(dir));
+            OrderArchive previous = readManifest(dir, months);
+            deleteUnlisted(dir, Arrays.asList(previous.partitions));
+            List<Partition> list = new ArrayList<>();
+            for (Map.Entry<String, List<Order>> e : group(orders, months).entrySet()) {
+                Partition p = new Partition(e.getKey());
+                // list the old files only so the new file gets a new name
+                for (Partition old : previous.partitions) {
+                    if (old.key.equals(p.key)) {
+                        p.files.addAll(old.files);
+                    }
+                }
+                p.minDay = Integer.MAX_VALUE;
+                p.maxDay = Integer.MIN_VALUE;
+                p.flowers = new HashSet<>();
+                if (!writeFile(dir, p, e.getValue())) {
+                    return false;
+                }
+                String file = p.files.get(p.files.size() - 1);
+                p.files.clear();
+                p.files.add(file);
+                extend(p, e.getValue());
+                list.add(p);
+            }
+            writeManifest(dir, months, Math.max(lastOrderId, previous.lastOrderId), list);
+            deleteUnlisted(dir, list);
+            return true;
+        } catch (IOException ex) {
+            System.out.println(ex);
+            return false;
+        }
+    }
+
+    /**
+     * Returns the partition key of an order date: the year and month of the
+     * first month of its period, or "undated" for an order without a date.
+     *
+     * @param day The order date as an epoch day, or Days.NONE.
+     * @param months The number of months of a partition.
+     * @return The partition key.
+     */
+    public static String keyOf(int day, int months) {
+        if (day == Days.NONE) {
+            return UNDATED;
+        }
+        LocalDate date = LocalDate.ofEpochDay(day);
+        int m = date.getYear() * 12 + date.getMonthValue() - 1;
+        m -= m % months;
+        int year = m / 12;
+        int month = m % 12 + 1;
+        return (year < 1000 ? String.format("%04d", year) : Integer.toString(year)) + (month < 10 ? "-0" : "-") + month;
+    }
+
+    /**
+     * Groups orders by partition key, in key order.
+     */
+    private static TreeMap<String, List<Order>> group(List<Order> orders, int months) {
+        TreeMap<String, List<Order>> groups = new TreeMap<>();
+        for (Order o : orders) {
+            String key = keyOf(o.getOrderDay(), months);
+            List<Order> list = groups.get(key);
+            if (list == null) {
+                list = new ArrayList<>();
+                groups.put(key, list);
+            }
+            list.add(o);
+        }
+        return groups;
+    }
+
+    /**
+     * Deletes the order files of a directory that the partitions do not list.
+     * A file that cannot be deleted, such as a file still mapped on Windows,
+     * is left for the next call.
+     */
+    private static void deleteUnlisted(String dir, List<Partition> list) {
+        HashSet<String> keep = new HashSet<>();
+        for (Partition p : list) {
+            keep.addAll(p.files);
+        }
+        File[] files = new File(dir).listFiles();
+        if (files != null) {
+            for (File f : files) {
+                if (f.getName().endsWith(".dat") && !keep.contains(f.getName())) {
+                    f.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes orders to a new file of a partition, named after the partition
+     * key and a generation number above those of its other files. A name
+     * still taken by a file that could not be deleted is skipped.
+     */
+    private static boolean writeFile(String dir, Partition p, List<Order> orders) {
+        int generation = 0;
+        for (String file : p.files) {
+            generation = Math.max(generation, Integer.parseInt(file.substring(p.key.length() + 1, file.length() - 4)));
+        }
+        String file;
+        do {
+            generation++;
+            file = p.key + "." + generation + ".dat";
+        } while (new File(dir, file).exists());
+        if (!StoreFile.saveOrders(orders, new File(dir, file).getPath())) {
+            return false;
+        }
+        p.files.add(file);
+        p.segments.add(1);
+        p.counts.add(orders.size());
+        return true;
+    }
+
+    /**
+     * Widens the date range of a partition to the dates of orders added to it,
+     * and adds their flowers to the flowers of the partition if it lists them.
+     */
+    private static void extend(Partition p, List<Order> orders) {
+        for (Order o : orders) {
+            if (o.getOrderDay() != Days.NONE) {
+                p.minDay = Math.min(p.minDay, o.getOrderDay());
+                p.maxDay = Math.max(p.maxDay, o.getOrderDay());
+            }
+            if (p.flowers != null) {
+                for (OrderDetail d : o.getOrderDetail()) {
+                    p.flowers.add(d.getFlowerId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the manifest of a directory. Each partition is listed on one line
+     * as: partition KEY MIN_DAY MAX_DAY FILE:SEGMENTS:COUNT... and may be
+     * followed by the flowers ordered in it as: flowers KEY FLOWER_ID... A
+     * version 1 manifest lists the date range in milliseconds, which is
+     * converted to local days.
+     */
+    private static OrderArchive readManifest(String dir, int months) throws IOException {
+        long lastOrderId = 0;
+        List<Partition> list = new ArrayList<>();
+        Path path = Paths.get(dir, MANIFEST);
+        if (Files.exists(path)) {
+            try (BufferedReader in = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                String format = in.readLine();
+                boolean millis = FORMAT_V1.equals(format);
+                if (!millis && !FORMAT.equals(format)) {
+                    throw new IOException(path + " is not an order archive manifest");
+                }
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String[] f = line.split(" ");
+                    if (f[0].equals("months")) {
+                        months = Integer.parseInt(f[1]);
+                    } else if (f[0].equals("last")) {
+                        lastOrderId = Long.parseLong(f[1]);
+                    } else if (f[0].equals("partition")) {
+                        Partition p = new Partition(f[1]);
+                        p.minDay = millis ? minDay(Long.parseLong(f[2])) : Integer.parseInt(f[2]);
+                        p.maxDay = millis ? Days.ofMillis(Long.parseLong(f[3])) : Integer.parseInt(f[3]);
+                        for (int i = 4; i < f.length; i++) {
+                            String[] file = f[i].split(":");
+                            p.files.add(file[0]);
+                            p.segments.add(Integer.parseInt(file[1]));
+                            p.counts.add(Integer.parseInt(file[2]));
+                        }
+                        list.add(p);
+                    } else if (f[0].equals("flowers") && !list.isEmpty() && list.get(list.size() - 1).key.equals(f[1])) {
+                        Partition p = list.get(list.size() - 1);
+                        p.flowers = new HashSet<>(Arrays.asList(f).subList(2, f.length));
+                    }
+                }
+            } catch (RuntimeException ex) {
+                throw new IOException(path + " is damaged: " + ex);
+            }
+        }
+        return new OrderArchive(dir, months, lastOrderId, list);
+    }
+
+    /**
+     * Converts the lower bound of a version 1 date range, where an empty
+     * range starts at Long.MAX_VALUE.
+     */
+    private static int minDay(long time) {
+        return time == Long.MAX_VALUE ? Integer.MAX_VALUE : Days.ofMillis(time);
+    }
+
+    /**
+     * Checks if the flowers of a partition are known and can be listed on a
+     * manifest line; a flower ID with a space in it could not be read back.
+     */
+    private static boolean isListable(Set<String> flowers) {
+        if (flowers == null) {
+            return false;
+        }
+        for (String flowerId : flowers) {
+            if (flowerId == null || flowerId.isEmpty() || flowerId.indexOf(' ') >= 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Writes the manifest of a directory, replacing it atomically. The new
+     * manifest is forced to disk before it replaces the old one.
+     */
+    private static void writeManifest(String dir, int months, long lastOrderId, Iterable<Partition> list) throws IOException {
+        Files.createDirectories(Paths.get(dir));
+        Path target = Paths.get(dir, MANIFEST);
+        Path tmp = Paths.get(dir, MANIFEST + ".tmp");
+        try (FileOutputStream file = new FileOutputStream(tmp.toFile());
+                BufferedWriter out = new BufferedWriter(new OutputStreamWriter(file, StandardCharsets.UTF_8))) {
+            out.write(FORMAT);
+            out.newLine();
+            out.write("months " + months);
+            out.newLine();
+            out.write("last " + lastOrderId);
+            out.newLine();
+            for (Partition p : list) {
+                StringBuilder sb = new StringBuilder("partition ");
+                sb.append(p.key).append(' ').append(p.minDay).append(' ').append(p.maxDay);
+                for (int f = 0; f < p.files.size(); f++) {
+                    sb.append(' ').append(p.files.get(f)).append(':').append(p.segments.get(f)).append(':').append(p.counts.get(f));
+                }
+                out.write(sb.toString());
+                out.newLine();
+                if (isListable(p.flowers)) {
+                    sb.setLength(0);
+                    sb.append("flowers ").append(p.key);
+                    for (String flowerId : p.flowers) {
+                        sb.append(' ').append(flowerId);
+                    }
+                    out.write(sb.toString());
+                    out.newLine();
+                }
+            }
+            out.flush();
+            file.getChannel().force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        StoreFile.syncDirectory(target.toAbsolutePath().getParent());
+    }
+}
@@ -0,0 +1,202 @@
+package Tools;
+
+import java.text.DecimalFormatSymbols;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DecimalStyle;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * This class formats the fixed-width columns of table rows by appending to a
+ * StringBuilder, so a row is formatted without String.format and without a
+ * new SimpleDateFormat. Each method appends the same text as the format
+ * specifier it names. Formatted dates are cached by epoch day; every method
+ * can be called from several threads at once.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class RowFormatter {
+
+    private static final int CACHE_SIZE = 1 << 12;
+    private static final DateText[] DATES = new DateText[CACHE_SIZE];
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyy")
+            .withDecimalStyle(DecimalStyle.ofDefaultLocale());
+    private static final boolean PLAIN_DIGITS;
+    private static final char[] SPACES = new char[64];
+
+    static {
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(Locale.getDefault(Locale.Category.FORMAT));
+        PLAIN_DIGITS = symbols.getZeroDigit() == '0' && symbols.getDecimalSeparator() == '.' && symbols.getMinusSign() == '-';
+        Arrays.fill(SPACES, ' ');
+    }
+
+    /**
+     * A table row that appends its columns to a StringBuilder.
+     */
+    public interface Row {
+
+        /**
+         * Appends the columns of the row.
+         *
+         * @param sb The builder to append to.
+         * @return The builder.
+         */
+        StringBuilder appendTo(StringBuilder sb);
+    }
+
+    /**
+     * A formatted date, cached by local day.
+     */
+    private static final class DateText {
+
+        private final int day;
+        private final String text;
+
+        DateText(int day, String text) {
+            this.day = day;
+            this.text = text;
+        }
+    }
+
+    /**
+     * Appends a string left-justified in a column, the same as %-Ns.
+     *
+     * @param sb The builder to append to.
+     * @param s The string, appended as "null" if null.
+     * @param width The width of the column.
+     * @return The builder.
+     */
+    public static StringBuilder left(StringBuilder sb, String s, int width) {
+        if (s == null) {
+            s = "null";
+        }
+        sb.append(s);
+        return pad(sb, width - s.length());
+    }
+
+    /**
+     * Appends a string right-justified in a column, the same as %Ns.
+     *
+     * @param sb The builder to append to.
+     * @param s The string, appended as "null" if null.
+     * @param width The width of the column.
+     * @return The builder.
+     */
+    public static StringBuilder right(StringBuilder sb, String s, int width) {
+        if (s == null) {
+            s = "null";
+        }
+        return pad(sb, width - s.length()).append(s);
+    }
+
+    /**
+     * Appends a number right-justified in a column, the same as %Nd.
+     *
+     * @param sb The builder to append to.
+     * @param n The number.
+     * @param width The width of the column.
+     * @return The builder.
+     */
+    public static StringBuilder number(StringBuilder sb, long n, int width) {
+        if (!PLAIN_DIGITS) {
+            return sb.append(String.format("%" + width + "d", n));
+        }
+        return pad(sb, width - digits(n)).append(n);
+    }
+
+    /**
+     * Appends a number with three decimals right-justified in a column, the
+     * same as %N.3f. Numbers that are too large or too close to halfway
+     * between two results are formatted with String.format, so the result
+     * is always the same.
+     *
+     * @param sb The builder to append to.
+     * @param v The number.
+     * @param width The width of the column.
+     * @return The builder.
+     */
+    public static StringBuilder decimal(StringBuilder sb, double v, int width) {
+        double scaled = Math.abs(v) * 1000;
+        double fraction = scaled - Math.floor(scaled);
+        if (!PLAIN_DIGITS || !(scaled < 1e12) || Math.abs(fraction - 0.5) < 1e-3) {
+            return sb.append(String.format("%" + width + ".3f", v));
+        }
+        long thousandths = (long) Math.floor(scaled + 0.5);
+        boolean negative = v < 0 || (v == 0 && 1 / v < 0);
+        long whole = thousandths / 1000;
+        int part = (int) (thousandths % 1000);
+        pad(sb, width - (negative ? 1 : 0) - digits(whole) - 4);
+        if (negative) {
+            sb.append('-');
+        }
+        sb.append(whole).append('.');
+        if (part < 100) {
+            sb.append(part < 10 ? "00" : "0");
+        }
+        return sb.append(part);
+    }
+
+    /**
+     * Appends a date right-justified in a column, formatted as dd/MM/yyy.
+     *
+     * @param sb The builder to append to.
+     * @param day The epoch day, appended as an empty column if Days.NONE.
+     * @param width The width of the column.
+     * @return The builder.
+     */
+    public static StringBuilder date(StringBuilder sb, int day, int width) {
+        return right(sb, day == Days.NONE ? "" : formatDate(day), width);
+    }
+
+    /**
+     * Formats an epoch day as dd/MM/yyy. The text of recent days is cached.
+     * Years before 1000 and locales with other digits are left to
+     * DateTimeFormatter.
+     *
+     * @param day The epoch day.
+     * @return The formatted date.
+     */
+    public static String formatDate(int day) {
+        int slot = day & (CACHE_SIZE - 1);
+        DateText cached = DATES[slot];
+        if (cached != null && cached.day == day) {
+            return cached.text;
+        }
+        LocalDate d = LocalDate.ofEpochDay(day);
+        if (d.getYear() < 1000 || !PLAIN_DIGITS) {
+            return DATE_FORMAT.format(d);
+        }
+        StringBuilder sb = new StringBuilder(10);
+        twoDigits(sb, d.getDayOfMonth()).append('/');
+        twoDigits(sb, d.getMonthValue()).append('/');
+        String text = sb.append(d.getYear()).toString();
+        DATES[slot] = new DateText(day, text);
+        return text;
+    }
+
+    private static StringBuilder twoDigits(StringBuilder sb, int n) {
+        return (n < 10 ? sb.append('0') : sb).append(n);
+    }
+
+    private static StringBuilder pad(StringBuilder sb, int n) {
+        while (n > 0) {
+            int k = Math.min(n, SPACES.length);
+            sb.append(SPACES, 0, k);
+            n -= k;
+        }
+        return sb;
+    }
+
+    private static int digits(long n) {
+        if (n < 0) {
+            return n == Long.MIN_VALUE ? 20 : 1 + digits(-n);
+        }
+        int d = 1;
+        while (n >= 10) {
+            n /= 10;
+            d++;
+        }
+        return d;
+    }
+}
@@ -0,0 +1,675 @@
+package Tools;
+
+import Model.Flower;
+import Model.Order;
+import Model.OrderDetail;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * This class provides the compact binary storage format for flowers and
+ * orders.
+ * <p>
+ * A file starts with a 16 byte header (magic, version, record kind, segment
+ * count) followed by one or more segments. Each segment has a 32 byte header
+ * (record count, string count, strings offset, index offset, end offset),
+ * its fixed-width records, a string table (end offsets followed by the UTF-8
+ * bytes) and an index holding the absolute offset of every record. All
+ * numbers are big-endian and every string field is an index into the string
+ * table of its segment, or -1 for null. Dates are epoch days, or
+ * Integer.MIN_VALUE for none; version 1 files stored dates as milliseconds
+ * since the epoch and are still read, converted to the local day.
+ * <p>
+ * A save can append a segment holding only new or changed records instead of
+ * rewriting the file. Segments are read in order; a later flower record
+ * replaces an earlier one with the same ID and a flower record flagged as
+ * deleted removes it.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class StoreFile {
+
+    public static final int MAGIC = 0x46534D53;
+    public static final short VERSION = 2;
+    public static final byte FLOWER = 1;
+    public static final byte ORDER = 2;
+    public static final int HEADER_SIZE = 16;
+    public static final int SEGMENT_HEADER_SIZE = 32;
+    public static final int FLOWER_SIZE = 25;
+    public static final int ORDER_HEADER_SIZE = 16;
+    public static final int DETAIL_SIZE = 20;
+    public static final long NO_DATE = Long.MIN_VALUE;
+    public static final byte DELETED = 1;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Checks if a file is written in the binary storage format.
+     *
+     * @param fileName The name of the file.
+     * @return True if the file starts with the binary format header, false
+     * otherwise.
+     */
+    public static boolean isStoreFile(String fileName) {
+        File f = new File(fileName);
+        if (!f.exists() || f.length() < HEADER_SIZE) {
+            return false;
+        }
+        try (FileChannel ch = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buf = ByteBuffer.allocate(4);
+            while (buf.hasRemaining() && ch.read(buf) >= 0) {
+            }
+            buf.flip();
+            return buf.remaining() == 4 && buf.getInt() == MAGIC;
+        } catch (IOException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Saves a list of flowers to a file.
+     *
+     * @param list The list of flowers to save.
+     * @param fileName The name of the file.
+     * @return True if the data is saved successfully, false otherwise.
+     */
+    public static boolean saveFlowers(List<Flower> list, String fileName) {
+        return save(list, FLOWER, fileName);
+    }
+
+    /**
+     * Saves a list of orders to a file.
+     *
+     * @param list The list of orders to save.
+     * @param fileName The name of the file.
+     * @return True if the data is saved successfully, false otherwise.
+     */
+    public static boolean saveOrders(List<Order> list, String fileName) {
+        return save(list, ORDER, fileName);
+    }
+
+    /**
+     * Appends a segment holding changed and deleted flowers to a file.
+     *
+     * @param changed The flowers added or updated since the last save.
+     * @param deleted The IDs of the flowers deleted since the last save.
+     * @param fileName The name of the file.
+     * @return True if the segment is appended successfully, false otherwise.
+     */
+    public static boolean appendFlowers(List<Flower> changed, List<String> deleted, String fileName) {
+        return append(changed, deleted, FLOWER, fileName, -1);
+    }
+
+    /**
+     * Appends a segment holding new orders to a file.
+     *
+     * @param added The orders added since the last save.
+     * @param fileName The name of the file.
+     * @return True if the segment is appended successfully, false otherwise.
+     */
+    public static boolean appendOrders(List<Order> added, String fileName) {
+        return append(added, Collections.<String>emptyList(), ORDER, fileName, -1);
+    }
+
+    /**
+     * Appends a segment holding new orders after the first segments of a
+     * file. Any segment after them, such as one written by an append whose
+     * caller crashed before recording it, is overwritten.
+     *
+     * @param added The orders to append.
+     * @param fileName The name of the file.
+     * @param segments The number of segments to keep.
+     * @return True if the segment is appended successfully, false otherwise.
+     */
+    public static boolean appendOrders(List<Order> added, String fileName, int segments) {
+        return append(added, Collections.<String>emptyList(), ORDER, fileName, segments);
+    }
+
+    /**
+     * Returns the number of segments of a file in the current version of the
+     * binary storage format. Only such files can be appended to.
+     *
+     * @param fileName The name of the file.
+     * @return The number of segments, or 0 if the file is not in the binary
+     * format or was written by an older version.
+     */
+    public static int segmentCount(String fileName) {
+        if (!isStoreFile(fileName)) {
+            return 0;
+        }
+        try (FileChannel ch = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            ByteBuffer header = read(ch, HEADER_SIZE, 0);
+            return header.getShort(4) == VERSION ? header.getInt(8) : 0;
+        } catch (IOException ex) {
+            return 0;
+        }
+    }
+
+    /**
+     * Loads a list of flowers from a file. Files still written with Java
+     * serialization are read through FileIO.
+     *
+     * @param fileName The name of the file.
+     * @return A list of flowers loaded from the file.
+     */
+    public static List<Flower> loadFlowers(String fileName) {
+        List<Flower> list = new ArrayList<>();
+        try {
+            if (!isStoreFile(fileName)) {
+                return legacy(fileName, Flower.class);
+            }
+            ByteBuffer buf = readFile(fileName);
+            int segments = readHeader(buf, FLOWER, fileName);
+            int dateSize = dateSize(buf.getShort(4));
+            long pos = HEADER_SIZE;
+            LinkedHashMap<String, Flower> flowers = new LinkedHashMap<>();
+            for (int s = 0; s < segments; s++) {
+                pos = readFlowerSegment(buf, (int) pos, dateSize, flowers);
+            }
+            list.addAll(flowers.values());
+        } catch (IOException | RuntimeException ex) {
+            System.out.println(ex);
+        }
+        return list;
+    }
+
+    /**
+     * Loads a list of orders from a file. Files still written with Java
+     * serialization are read through FileIO.
+     *
+     * @param fileName The name of the file.
+     * @return A list of orders loaded from the file.
+     */
+    public static List<Order> loadOrders(String fileName) {
+        List<Order> list = new ArrayList<>();
+        try {
+            if (!isStoreFile(fileName)) {
+                return legacy(fileName, Order.class);
+            }
+            ByteBuffer buf = readFile(fileName);
+            int segments = readHeader(buf, ORDER, fileName);
+            int dateSize = dateSize(buf.getShort(4));
+            long pos = HEADER_SIZE;
+            for (int s = 0; s < segments; s++) {
+                pos = readOrderSegment(buf, (int) pos, dateSize, list);
+            }
+        } catch (IOException | RuntimeException ex) {
+            System.out.println(ex);
+        }
+        return list;
+    }
+
+    /**
+     * Rewrites a file saved with Java serialization or an older version of the
+     * binary storage format in the current version. Files already in the
+     * current version are left untouched.
+     *
+     * @param fileName The name of the file.
+     * @return True if the file is in the current version afterwards, false
+     * otherwise.
+     */
+    public static boolean migrate(String fileName) {
+        if (segmentCount(fileName) > 0) {
+            return true;
+        }
+        List<?> list;
+        byte kind;
+        if (isStoreFile(fileName)) {
+            try (FileChannel ch = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+                kind = read(ch, HEADER_SIZE, 0).get(6);
+            } catch (IOException ex) {
+                System.out.println(ex);
+                return false;
+            }
+            list = kind == FLOWER ? loadFlowers(fileName) : loadOrders(fileName);
+        } else {
+            list = FileIO.loadData(fileName);
+            if (list.isEmpty()) {
+                return false;
+            }
+            kind = list.get(0) instanceof Order ? ORDER : FLOWER;
+        }
+        return save(list, kind, fileName);
+    }
+
+    /**
+     * Migrates the files given on the command line to the binary format.
+     *
+     * @param args The names of the files to migrate.
+     */
+    public static void main(String[] args) {
+        for (String fileName : args) {
+            System.out.println(fileName + (migrate(fileName) ? ": migrated" : ": failure"));
+        }
+    }
+
+    /**
+     * Writes a list of records as a single segment, replacing the file
+     * atomically. The new file is forced to disk before it replaces the old
+     * one, and the directory after, so a crash leaves either file whole.
+     */
+    private static boolean save(List<?> list, byte kind, String fileName) {
+        Path target = Paths.get(fileName);
+        Path tmp = Paths.get(fileName + ".tmp");
+        try {
+            try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                Output out = new Output(ch, 0);
+                out.putInt(MAGIC);
+                out.putShort(VERSION);
+                out.put(kind);
+                out.put((byte) 0);
+                out.putInt(1);
+                out.putInt(0);
+                writeSegment(out, list, Collections.<String>emptyList(), kind);
+                out.flush();
+                ch.force(true);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(target.toAbsolutePath().getParent());
+            return true;
+        } catch (IOException ex) {
+            System.out.println(ex);
+            return false;
+        }
+    }
+
+    /**
+     * Forces a directory to disk, so a file just moved into it is still there
+     * after a crash. Platforms that cannot open a directory, such as Windows,
+     * are skipped.
+     *
+     * @param dir The directory.
+     */
+    static void syncDirectory(Path dir) {
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException ex) {
+            // a directory cannot be opened on this platform
+        }
+    }
+
+    /**
+     * Writes a segment after the last segment of a file, or after the
+     * specified number of segments if it is not negative, then counts it in
+     * the file header. A segment left uncounted by a crash is overwritten by
+     * the next append. Files of an older version are refused, since their
+     * segments would not share one record layout.
+     */
+    private static boolean append(List<?> list, List<String> deleted, byte kind, String fileName, int keep) {
+        if (list.isEmpty() && deleted.isEmpty()) {
+            return true;
+        }
+        try (FileChannel ch = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer header = read(ch, HEADER_SIZE, 0);
+            int segments = readHeader(header, kind, fileName);
+            if (header.getShort(4) != VERSION) {
+                throw new IOException(fileName + " has to be rewritten before it can be appended to");
+            }
+            if (keep >= 0 && keep < segments) {
+                segments = keep;
+            }
+            long end = HEADER_SIZE;
+            for (int s = 0; s < segments; s++) {
+                end = read(ch, 8, end + 24).getLong(0);
+            }
+            Output out = new Output(ch, end);
+            writeSegment(out, list, deleted, kind);
+            out.flush();
+            ch.truncate(out.position());
+            ch.force(false);
+            ByteBuffer count = ByteBuffer.allocate(4);
+            count.putInt(0, segments + 1);
+            ch.write(count, 8);
+            ch.force(false);
+            return true;
+        } catch (IOException ex) {
+            System.out.println(ex);
+            return false;
+        }
+    }
+
+    /**
+     * Reads a number of bytes at an absolute position of a channel.
+     */
+    private static ByteBuffer read(FileChannel ch, int n, long at) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(n);
+        while (buf.hasRemaining()) {
+            if (ch.read(buf, at + buf.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+        buf.flip();
+        return buf;
+    }
+
+    /**
+     * Writes one segment at the current position of the output.
+     *
+     * @param out The output to write to.
+     * @param list The records of the segment.
+     * @param deleted The IDs of the deleted flowers, written as flagged
+     * records.
+     * @param kind The record kind.
+     * @throws IOException If an I/O error occurs.
+     */
+    static void writeSegment(Output out, List<?> list, List<String> deleted, byte kind) throws IOException {
+        long start = out.position();
+        int count = list.size() + deleted.size();
+        out.putInt(count);
+        out.putInt(0);
+        out.putLong(0);
+        out.putLong(0);
+        out.putLong(0);
+        LinkedHashMap<String, Integer> strings = new LinkedHashMap<>();
+        long[] index = new long[count];
+        int i = 0;
+        for (String flowerId : deleted) {
+            index[i++] = out.position();
+            out.put(DELETED);
+            out.putInt(stringId(strings, flowerId));
+            out.putInt(-1);
+            out.putInt(Days.NONE);
+            out.putDouble(0);
+            out.putInt(-1);
+        }
+        for (Object obj : list) {
+            index[i++] = out.position();
+            if (kind == FLOWER) {
+                writeFlower(out, (Flower) obj, strings);
+            } else {
+                writeOrder(out, (Order) obj, strings);
+            }
+        }
+        long stringsOffset = out.position();
+        List<byte[]> bytes = new ArrayList<>(strings.size());
+        int end = 0;
+        for (String s : strings.keySet()) {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            bytes.add(b);
+            end += b.length;
+            out.putInt(end);
+        }
+        for (byte[] b : bytes) {
+            out.put(b);
+        }
+        long indexOffset = out.position();
+        for (long offset : index) {
+            out.putLong(offset);
+        }
+        long endOffset = out.position();
+        ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+        header.putInt(count).putInt(strings.size()).putLong(stringsOffset).putLong(indexOffset).putLong(endOffset);
+        header.flip();
+        out.patch(header, start);
+    }
+
+    private static void writeFlower(Output out, Flower f, LinkedHashMap<String, Integer> strings) throws IOException {
+        out.put((byte) 0);
+        out.putInt(stringId(strings, f.getFlowerId()));
+        out.putInt(stringId(strings, f.getName()));
+        out.putInt(f.getImportDay());
+        out.putDouble(f.getUnitPrice());
+        out.putInt(stringId(strings, f.getCategory()));
+    }
+
+    private static void writeOrder(Output out, Order o, LinkedHashMap<String, Integer> strings) throws IOException {
+        out.putInt(stringId(strings, o.getOrderId()));
+        out.putInt(o.getOrderDay());
+        out.putInt(stringId(strings, o.getCustomerName()));
+        out.putInt(o.getOrderDetail().size());
+        for (OrderDetail d : o.getOrderDetail()) {
+            out.putInt(stringId(strings, d.getOrderDetailId()));
+            out.putInt(stringId(strings, d.getFlowerId()));
+            out.putInt(d.getQuantity());
+            out.putDouble(d.getFlowerCost());
+        }
+    }
+
+    private static int stringId(LinkedHashMap<String, Integer> strings, String s) {
+        if (s == null) {
+            return -1;
+        }
+        Integer id = strings.get(s);
+        if (id == null) {
+            id = strings.size();
+            strings.put(s, id);
+        }
+        return id;
+    }
+
+    /**
+     * Reads a whole file into a buffer.
+     */
+    private static ByteBuffer readFile(String fileName) throws IOException {
+        try (FileChannel ch = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            if (ch.size() > Integer.MAX_VALUE) {
+                throw new IOException(fileName + " is too large to be loaded into memory");
+            }
+            ByteBuffer buf = ByteBuffer.allocate((int) ch.size());
+            while (buf.hasRemaining() && ch.read(buf) >= 0) {
+            }
+            buf.flip();
+            return buf;
+        }
+    }
+
+    /**
+     * Reads a file saved with Java serialization through FileIO, checking
+     * the class of every record.
+     */
+    private static <T> List<T> legacy(String fileName, Class<T> type) {
+        List<?> records = FileIO.loadData(fileName);
+        List<T> list = new ArrayList<>(records.size());
+        for (Object record : records) {
+            list.add(type.cast(record));
+        }
+        return list;
+    }
+
+    /**
+     * Validates the file header.
+     *
+     * @param buf The buffer holding the file.
+     * @param kind The expected record kind.
+     * @param fileName The name of the file, for error messages.
+     * @return The number of segments in the file.
+     * @throws IOException If the header does not match.
+     */
+    static int readHeader(ByteBuffer buf, byte kind, String fileName) throws IOException {
+        if (buf.getInt(0) != MAGIC) {
+            throw new IOException(fileName + " is not a store file");
+        }
+        short version = buf.getShort(4);
+        if (version < 1 || version > VERSION) {
+            throw new IOException(fileName + " has unsupported version " + version);
+        }
+        if (buf.get(6) != kind) {
+            throw new IOException(fileName + " does not hold the expected records");
+        }
+        return buf.getInt(8);
+    }
+
+    /**
+     * Returns the size of a date field in a version of the format: a long of
+     * milliseconds in version 1, an int epoch day since.
+     *
+     * @param version The version of the file.
+     * @return The size in bytes.
+     */
+    static int dateSize(short version) {
+        return version == 1 ? 8 : 4;
+    }
+
+    /**
+     * Reads a date field as an epoch day.
+     */
+    private static int day(ByteBuffer buf, int pos, int dateSize) {
+        return dateSize == 8 ? Days.ofMillis(buf.getLong(pos)) : buf.getInt(pos);
+    }
+
+    /**
+     * Reads the flower records of a segment into a map keyed by upper-case
+     * flower ID, so a later record replaces an earlier one and a deleted
+     * record removes it.
+     *
+     * @return The end offset of the segment.
+     */
+    private static long readFlowerSegment(ByteBuffer buf, int start, int dateSize, LinkedHashMap<String, Flower> flowers) {
+        String[] strings = readStrings(buf, start);
+        int count = buf.getInt(start);
+        int indexOffset = (int) buf.getLong(start + 16);
+        for (int i = 0; i < count; i++) {
+            int pos = (int) buf.getLong(indexOffset + 8 * i);
+            String flowerId = str(strings, buf.getInt(pos + 1));
+            flowers.remove(flowerId.toUpperCase());
+            if (buf.get(pos) != DELETED) {
+                flowers.put(flowerId.toUpperCase(), new Flower(flowerId, str(strings, buf.getInt(pos + 5)),
+                        day(buf, pos + 9, dateSize), buf.getDouble(pos + 9 + dateSize),
+                        str(strings, buf.getInt(pos + 17 + dateSize))));
+            }
+        }
+        return buf.getLong(start + 24);
+    }
+
+    /**
+     * Reads the order records of a segment into a list.
+     *
+     * @return The end offset of the segment.
+     */
+    private static long readOrderSegment(ByteBuffer buf, int start, int dateSize, List<Order> orders) {
+        String[] strings = readStrings(buf, start);
+        int count = buf.getInt(start);
+        int indexOffset = (int) buf.getLong(start + 16);
+        for (int i = 0; i < count; i++) {
+            int pos = (int) buf.getLong(indexOffset + 8 * i);
+            int details = buf.getInt(pos + 8 + dateSize);
+            List<OrderDetail> orderDetail = new ArrayList<>(details);
+            int d = pos + 12 + dateSize;
+            for (int j = 0; j < details; j++, d += DETAIL_SIZE) {
+                orderDetail.add(new OrderDetail(str(strings, buf.getInt(d)), str(strings, buf.getInt(d + 4)),
+                        buf.getInt(d + 8), buf.getDouble(d + 12)));
+            }
+            orders.add(new Order(str(strings, buf.getInt(pos)), day(buf, pos + 4, dateSize),
+                    str(strings, buf.getInt(pos + 4 + dateSize)), orderDetail));
+        }
+        return buf.getLong(start + 24);
+    }
+
+    /**
+     * Reads the string table of a segment.
+     */
+    private static String[] readStrings(ByteBuffer buf, int start) {
+        int stringCount = buf.getInt(start + 4);
+        int stringsOffset = (int) buf.getLong(start + 8);
+        String[] strings = new String[stringCount];
+        int blob = stringsOffset + 4 * stringCount;
+        int from = 0;
+        for (int i = 0; i < stringCount; i++) {
+            int to = buf.getInt(stringsOffset + 4 * i);
+            strings[i] = new String(buf.array(), blob + from, to - from, StandardCharsets.UTF_8);
+            from = to;
+        }
+        return strings;
+    }
+
+    private static String str(String[] strings, int id) {
+        return id < 0 ? null : strings[id];
+    }
+
+    /**
+     * A buffered writer over a file channel that keeps track of its absolute
+     * position.
+     */
+    static class Output {
+
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private long position;
+
+        Output(FileChannel ch, long position) {
+            this.ch = ch;
+            this.position = position;
+        }
+
+        long position() {
+            return position;
+        }
+
+        private void ensure(int n) throws IOException {
+            if (buf.remaining() < n) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                ch.write(buf, position - buf.remaining());
+            }
+            buf.clear();
+        }
+
+        void put(byte b) throws IOException {
+            ensure(1);
+            buf.put(b);
+            position++;
+        }
+
+        void put(byte[] b) throws IOException {
+            int off = 0;
+            while (off < b.length) {
+                ensure(1);
+                int n = Math.min(buf.remaining(), b.length - off);
+                buf.put(b, off, n);
+                off += n;
+                position += n;
+            }
+        }
+
+        void putShort(short v) throws IOException {
+            ensure(2);
+            buf.putShort(v);
+            position += 2;
+        }
+
+        void putInt(int v) throws IOException {
+            ensure(4);
+            buf.putInt(v);
+            position += 4;
+        }
+
+        void putLong(long v) throws IOException {
+            ensure(8);
+            buf.putLong(v);
+            position += 8;
+        }
+
+        void putDouble(double v) throws IOException {
+            ensure(8);
+            buf.putDouble(v);
+            position += 8;
+        }
+
+        /**
+         * Overwrites bytes that have already been written.
+         */
+        void patch(ByteBuffer src, long at) throws IOException {
+            flush();
+            while (src.hasRemaining()) {
+                ch.write(src, at + src.position());
+            }
+        }
+    }
+}
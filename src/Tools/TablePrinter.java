@@ -0,0 +1,104 @@
+package Tools;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.Iterator;
+
+/**
+ * This class prints tables to the console through a large buffer, so a table
+ * reaches the console in a few large writes instead of one write per row.
+ * Rows are printed straight from an iterator, one page at a time.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class TablePrinter {
+
+    /**
+     * The number of rows of a page, or 0 to print every row at once. It can
+     * be set with -Dstore.pageSize.
+     */
+    public static final int PAGE_SIZE = Math.max(0, Integer.getInteger("store.pageSize", 100));
+    private static final int BUFFER_SIZE = 1 << 16;
+    private final PrintWriter out;
+    private final StringBuilder line = new StringBuilder(128);
+    private char[] chars = new char[128];
+
+    /**
+     * Constructor for the TablePrinter class.
+     */
+    public TablePrinter() {
+        out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out), BUFFER_SIZE), false);
+    }
+
+    /**
+     * Prints a line.
+     *
+     * @param line The line to print.
+     * @return This printer.
+     */
+    public TablePrinter line(String line) {
+        out.println(line);
+        return this;
+    }
+
+    /**
+     * Prints a numbered row, the same as printf("|%6d") followed by
+     * println(row). A row that implements RowFormatter.Row is appended to a
+     * reused buffer instead of being turned into a String.
+     *
+     * @param no The number of the row.
+     * @param row The row.
+     * @return This printer.
+     */
+    public TablePrinter row(long no, Object row) {
+        line.setLength(0);
+        RowFormatter.number(line.append('|'), no, 6);
+        if (row instanceof RowFormatter.Row) {
+            ((RowFormatter.Row) row).appendTo(line);
+        } else {
+            line.append(row);
+        }
+        if (chars.length < line.length()) {
+            chars = new char[line.length() * 2];
+        }
+        line.getChars(0, line.length(), chars, 0);
+        out.write(chars, 0, line.length());
+        out.println();
+        return this;
+    }
+
+    /**
+     * Skips the rows before a page.
+     *
+     * @param rows The rows.
+     * @param offset The number of rows to skip.
+     * @return The number of rows skipped.
+     */
+    public static int skip(Iterator<?> rows, int offset) {
+        int n = 0;
+        while (n < offset && rows.hasNext()) {
+            rows.next();
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Writes the buffered lines to the console. The printer must be flushed
+     * before anything else is printed or read from the console.
+     */
+    public void flush() {
+        out.flush();
+    }
+
+    /**
+     * Flushes the printer, then asks if the next page should be printed.
+     *
+     * @return True to print the next page, false to stop.
+     */
+    public boolean nextPage() {
+        flush();
+        return InputFormatter.getBoolean("Show the next page? (Y/N): ");
+    }
+}
@@ -0,0 +1,148 @@
+package Tools;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class provides a trigram inverted index for case-insensitive
+ * substring search. It is safe for use by multiple threads.
+ *
+ * @param <T> The type of the indexed items.
+ * @author Nguyen Truong Tho
+ */
+public class TrigramIndex<T> {
+
+    private static final int GRAM = 3;
+    private final HashMap<T, String> keys = new HashMap<>();
+    private final HashMap<String, HashSet<T>> grams = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Indexes an item under the specified text, replacing its previous text.
+     *
+     * @param item The item to index.
+     * @param text The text to search the item by.
+     */
+    public void put(T item, String text) {
+        String key = normalize(text);
+        lock.writeLock().lock();
+        try {
+            removeKey(item);
+            keys.put(item, key);
+            for (int i = 0; i + GRAM <= key.length(); i++) {
+                String gram = key.substring(i, i + GRAM);
+                HashSet<T> set = grams.get(gram);
+                if (set == null) {
+                    set = new HashSet<>();
+                    grams.put(gram, set);
+                }
+                set.add(item);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes an item from the index.
+     *
+     * @param item The item to remove.
+     */
+    public void remove(T item) {
+        lock.writeLock().lock();
+        try {
+            removeKey(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeKey(T item) {
+        String key = keys.remove(item);
+        if (key != null) {
+            for (int i = 0; i + GRAM <= key.length(); i++) {
+                String gram = key.substring(i, i + GRAM);
+                HashSet<T> set = grams.get(gram);
+                if (set != null) {
+                    set.remove(item);
+                    if (set.isEmpty()) {
+                        grams.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes all items from the index.
+     */
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            keys.clear();
+            grams.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the items whose text contains the query, ignoring case. Only the
+     * items sharing the query's rarest trigram are checked; queries shorter
+     * than a trigram are checked against every pre-normalized text. Searches
+     * run in parallel with each other, but not with changes to the index.
+     *
+     * @param query The text to search for.
+     * @return A list of the matching items.
+     */
+    public List<T> search(String query) {
+        lock.readLock().lock();
+        try {
+            return find(normalize(query));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<T> find(String q) {
+        List<T> list = new ArrayList<>();
+        if (q.length() < GRAM) {
+            for (Map.Entry<T, String> e : keys.entrySet()) {
+                if (e.getValue().contains(q)) {
+                    list.add(e.getKey());
+                }
+            }
+            return list;
+        }
+        HashSet<T> candidates = null;
+        for (int i = 0; i + GRAM <= q.length(); i++) {
+            HashSet<T> set = grams.get(q.substring(i, i + GRAM));
+            if (set == null) {
+                return list;
+            }
+            if (candidates == null || set.size() < candidates.size()) {
+                candidates = set;
+            }
+        }
+        for (T item : candidates) {
+            if (q.length() == GRAM || keys.get(item).contains(q)) {
+                list.add(item);
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Normalizes a text for indexing and searching.
+     *
+     * @param text The text to normalize.
+     * @return The lower-cased text.
+     */
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase();
+    }
+}
@@ -0,0 +1,191 @@
+package Tools;
+
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * This class holds the input rules shared by the console prompts, the bulk
+ * import and the HTTP API. The fixed rules are checked character by character
+ * instead of with regular expressions, so a check does not allocate, and
+ * dates are parsed in the same pass that validates them. Rules given as
+ * regular expressions are compiled once and cached.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class Validator {
+
+    public static final String FLOWER_ID_FORMAT = "Flower Id must be in FXXX (with X is digit) format!";
+    public static final String FLOWER_NAME_FORMAT = "The length of the description field must be from 3 to 50 characters.";
+    public static final String CUSTOMER_NAME_FORMAT = "Must be in name format!";
+    public static final String DATE_FORMAT = "the date must be in dd/mm/yyyy format!";
+    private static final ConcurrentHashMap<String, Pattern> PATTERNS = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the compiled pattern of a regular expression, compiling it only
+     * the first time.
+     *
+     * @param regex The regular expression.
+     * @return The compiled pattern.
+     */
+    public static Pattern pattern(String regex) {
+        Pattern p = PATTERNS.get(regex);
+        if (p == null) {
+            p = Pattern.compile(regex);
+            Pattern shared = PATTERNS.putIfAbsent(regex, p);
+            if (shared != null) {
+                p = shared;
+            }
+        }
+        return p;
+    }
+
+    /**
+     * Checks if a string is a flower ID in the FXXX format, with the F in
+     * either case.
+     *
+     * @param s The string to check.
+     * @return True if the string is a flower ID, false otherwise.
+     */
+    public static boolean isFlowerId(String s) {
+        return Codes.flowerNumber(s) >= 0;
+    }
+
+    /**
+     * Checks if a string is a flower name: 3 to 50 letters, digits and spaces.
+     *
+     * @param s The string to check.
+     * @return True if the string is a flower name, false otherwise.
+     */
+    public static boolean isFlowerName(CharSequence s) {
+        if (s == null || s.length() < 3 || s.length() > 50) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (!isLetter(c) && (c < '0' || c > '9') && c != ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a string is a customer name: one or more letters and spaces.
+     *
+     * @param s The string to check.
+     * @return True if the string is a customer name, false otherwise.
+     */
+    public static boolean isCustomerName(CharSequence s) {
+        if (s == null || s.length() == 0) {
+            return false;
+        }
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (!isLetter(c) && c != ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a string is a phone number: a 0, a digit from 1 to 9, then
+     * eight digits.
+     *
+     * @param s The string to check.
+     * @return True if the string is a phone number, false otherwise.
+     */
+    public static boolean isPhone(CharSequence s) {
+        if (s == null || s.length() != 10 || s.charAt(0) != '0' || s.charAt(1) == '0') {
+            return false;
+        }
+        for (int i = 1; i < 10; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a string is a date in dd/mm/yyyy format that exists in the
+     * calendar.
+     *
+     * @param s The string to check.
+     * @return True if the string is a valid date, false otherwise.
+     */
+    public static boolean isDate(CharSequence s) {
+        return parseDay(s) != Days.NONE;
+    }
+
+    /**
+     * Parses a date in dd/mm/yyyy format.
+     *
+     * @param s The string to parse.
+     * @return The date, or null if the string is not a valid date.
+     */
+    public static LocalDate parseDate(CharSequence s) {
+        return Days.toLocalDate(parseDay(s));
+    }
+
+    /**
+     * Parses a date in dd/mm/yyyy format to an epoch day. The day and month
+     * take two digits and the year four, from 1900 to 2099; the separators
+     * may be any of '/', '-', '.' and ' '. The day must exist in the month.
+     *
+     * @param s The string to parse.
+     * @return The epoch day, or Days.NONE if the string is not a valid date.
+     */
+    public static int parseDay(CharSequence s) {
+        if (s == null || s.length() != 10 || !isSeparator(s.charAt(2)) || !isSeparator(s.charAt(5))) {
+            return Days.NONE;
+        }
+        int day = twoDigits(s, 0);
+        int month = twoDigits(s, 3);
+        int century = twoDigits(s, 6);
+        int year = twoDigits(s, 8);
+        if (day < 1 || month < 1 || month > 12 || (century != 19 && century != 20) || year < 0) {
+            return Days.NONE;
+        }
+        year += century * 100;
+        if (day > lengthOfMonth(month, year)) {
+            return Days.NONE;
+        }
+        return (int) LocalDate.of(year, month, day).toEpochDay();
+    }
+
+    private static int lengthOfMonth(int month, int year) {
+        switch (month) {
+            case 2:
+                return year % 400 == 0 || (year % 4 == 0 && year % 100 != 0) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Parses two digits.
+     *
+     * @return The number, or -1 if a character is not a digit.
+     */
+    private static int twoDigits(CharSequence s, int from) {
+        int d1 = s.charAt(from) - '0';
+        int d2 = s.charAt(from + 1) - '0';
+        return d1 < 0 || d1 > 9 || d2 < 0 || d2 > 9 ? -1 : d1 * 10 + d2;
+    }
+
+    private static boolean isSeparator(char c) {
+        return c == '/' || c == '-' || c == '.' || c == ' ';
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
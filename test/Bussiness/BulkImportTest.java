@@ -0,0 +1,98 @@
+package Bussiness;
+
+import Model.Flower;
+import Model.Order;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of the CSV parsing of the bulk import.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class BulkImportTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private final FlowerManagement flowerSet = new FlowerManagement();
+    private final OrderManagement orderSet = new OrderManagement();
+    private final BulkImport bulk = new BulkImport(flowerSet, orderSet);
+
+    private String csv(String name, String... lines) throws Exception {
+        File file = new File(folder.getRoot(), name);
+        Files.write(file.toPath(), Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file.getPath();
+    }
+
+    @Test
+    public void testQuotedFlowerFields() throws Exception {
+        String file = csv("flowers.csv",
+                "flowerId,name,importDate,unitPrice,category",
+                "\"F001\",\"Red Rose\",01/01/2024,2.5,\"red, white\"",
+                "F002,Tulip,02/01/2024,3,\"say \"\"hi\"\"\"",
+                "F003 , Lily ,03/01/2024,\"4.5\",  plain  ",
+                "F004,\"Daisy\",04/01/2024,1,\"\"");
+        assertTrue(bulk.importFlowers(file));
+        assertEquals(4, bulk.getImported());
+        assertEquals(0, bulk.getRejected());
+        assertFalse(new File(file + ".rejected").exists());
+        Flower rose = flowerSet.getFlowerById("F001");
+        assertEquals("Red Rose", rose.getName());
+        assertEquals("red, white", rose.getCategory());
+        assertEquals(LocalDate.of(2024, 1, 1), rose.getImportDate());
+        assertEquals("say \"hi\"", flowerSet.getFlowerById("F002").getCategory());
+        Flower lily = flowerSet.getFlowerById("F003");
+        assertEquals("Lily", lily.getName());
+        assertEquals(4.5, lily.getUnitPrice(), 0);
+        assertEquals("plain", lily.getCategory());
+        assertEquals("", flowerSet.getFlowerById("F004").getCategory());
+    }
+
+    @Test
+    public void testFieldCountIgnoresQuotedCommas() throws Exception {
+        String file = csv("flowers.csv",
+                "flowerId,name,importDate,unitPrice,category",
+                "F001,Rose,01/01/2024,2.5,red,white",
+                "F002,Tulip,01/01/2024,2.5",
+                "F003,Lily,01/01/2024,2.5,\"red,white\"");
+        assertTrue(bulk.importFlowers(file));
+        assertEquals(1, bulk.getImported());
+        assertEquals(2, bulk.getRejected());
+        assertNull(flowerSet.getFlowerById("F001"));
+        assertEquals("red,white", flowerSet.getFlowerById("F003").getCategory());
+        List<String> rejected = Files.readAllLines(new File(file + ".rejected").toPath(), StandardCharsets.UTF_8);
+        assertEquals(2, rejected.size());
+        assertTrue(rejected.get(0).startsWith("line 2: "));
+        assertTrue(rejected.get(1).startsWith("line 3: "));
+    }
+
+    @Test
+    public void testQuotedOrderReference() throws Exception {
+        assertTrue(bulk.importFlowers(csv("flowers.csv",
+                "flowerId,name,importDate,unitPrice,category",
+                "F001,Rose,01/01/2024,2.5,red",
+                "F002,Tulip,01/01/2024,1.5,yellow")));
+        String file = csv("orders.csv",
+                "orderRef,orderDate,customerName,flowerId,quantity",
+                "\"A,1\",05/01/2024,\"Nguyen Van A\",F001,2",
+                "\"A,1\",05/01/2024,Nguyen Van A,\"F002\",\"3\"",
+                "A,05/01/2024,Nguyen Van A,F001,1");
+        assertTrue(bulk.importOrders(file));
+        assertEquals(2, bulk.getImported());
+        assertEquals(0, bulk.getRejected());
+        List<Order> orders = orderSet.getOrdersByCustomer("Nguyen Van A");
+        assertEquals(2, orders.size());
+        assertEquals(2, orders.get(0).getOrderDetail().size());
+        assertEquals(5, orders.get(0).getQuantity());
+        assertEquals(9.5, orders.get(0).getFlowerCost(), 1e-9);
+        assertEquals(1, orders.get(1).getQuantity());
+    }
+}
@@ -0,0 +1,75 @@
+package Bussiness;
+
+import Model.Order;
+import Model.OrderDetail;
+import Tools.OrderArchive;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of the customer index, over the orders of the collection and of the
+ * order archive.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class CustomerIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Order order(String orderId, String customerName, int quantity, double cost) {
+        return new Order(orderId, LocalDate.of(2024, 1, 10), customerName,
+                Arrays.asList(new OrderDetail("0001", "F001", quantity, cost)));
+    }
+
+    @Test
+    public void testNormalize() {
+        assertEquals("tho nguyen", CustomerIndex.normalize("  Tho   Nguyen "));
+        assertEquals("tho nguyen", CustomerIndex.normalize("tho\tnguyen"));
+        assertEquals("", CustomerIndex.normalize("   "));
+        assertEquals("", CustomerIndex.normalize(null));
+    }
+
+    @Test
+    public void testOrdersAndTotals() {
+        CustomerIndex index = new CustomerIndex();
+        Order first = order("0001", "Tho Nguyen", 2, 5);
+        index.add(first);
+        index.add(order("0002", "tho  nguyen", 3, 7.5));
+        index.add(order("0003", "Tran Thi B", 1, 1));
+        assertEquals(2, index.getOrderCount("THO NGUYEN", null));
+        assertEquals(5, index.getQuantity("Tho Nguyen", null));
+        assertEquals(12.5, index.getSpend("Tho Nguyen", null), 1e-9);
+        index.remove(first);
+        List<Order> orders = index.getOrders("Tho Nguyen", null);
+        assertEquals(1, orders.size());
+        assertEquals("0002", orders.get(0).getOrderId());
+        assertEquals(3, index.getQuantity("Tho Nguyen", null));
+        assertEquals(0, index.getOrderCount("Nobody", null));
+        assertTrue(index.getOrders("Nobody", null).isEmpty());
+    }
+
+    @Test
+    public void testArchivedOrdersComeFirst() {
+        String dir = folder.getRoot().getPath();
+        assertTrue(OrderArchive.save(dir, 1, Arrays.asList(
+                order("0001", "Tho Nguyen", 2, 5),
+                order("0002", "Tran Thi B", 4, 8)), 2));
+        OrderManagement orderSet = new OrderManagement();
+        orderSet.openData(dir);
+        orderSet.addOrder(LocalDate.of(2024, 2, 1), "THO NGUYEN", Arrays.asList(new OrderDetail("0001", "F002", 1, 3)));
+        List<Order> orders = orderSet.getOrdersByCustomer("tho nguyen");
+        assertEquals(2, orders.size());
+        assertEquals("0001", orders.get(0).getOrderId());
+        assertEquals("0003", orders.get(1).getOrderId());
+        assertEquals(2, orderSet.getCustomerOrderCount("Tho Nguyen"));
+        assertEquals(3, orderSet.getCustomerQuantity("Tho Nguyen"));
+        assertEquals(8, orderSet.getCustomerSpend("Tho Nguyen"), 1e-9);
+        assertEquals(4, orderSet.getCustomerQuantity("Tran Thi B"));
+    }
+}
@@ -0,0 +1,147 @@
+package Bussiness;
+
+import Model.Flower;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests of the flower lookups and of the indexes kept by the flower
+ * collection.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class FlowerManagementTest {
+
+    private final FlowerManagement flowerSet = new FlowerManagement();
+
+    private static Flower flower(String flowerId, String name, double unitPrice, String category) {
+        return new Flower(flowerId, name, LocalDate.of(2024, 1, 15), unitPrice, category);
+    }
+
+    private static List<String> ids(List<Flower> flowers) {
+        return flowers.stream().map(Flower::getFlowerId).collect(Collectors.toList());
+    }
+
+    private static List<String> sortedIds(List<Flower> flowers) {
+        return flowers.stream().map(Flower::getFlowerId).sorted().collect(Collectors.toList());
+    }
+
+    private void addFlowers() {
+        assertTrue(flowerSet.addFlower(flower("F001", "Red Rose", 2.5, "Rose")));
+        assertTrue(flowerSet.addFlower(flower("F002", "White Rose", 3, "rose")));
+        assertTrue(flowerSet.addFlower(flower("F010", "Tulip", 1.5, "Tulip")));
+        assertTrue(flowerSet.addFlower(flower("F100", "Rosemary", 3, "Herb")));
+    }
+
+    @Test
+    public void testGetFlowerByIdIgnoresCase() {
+        addFlowers();
+        assertEquals("Red Rose", flowerSet.getFlowerById("F001").getName());
+        assertEquals("Red Rose", flowerSet.getFlowerById("f001").getName());
+        assertTrue(flowerSet.isExist("f010"));
+        assertFalse(flowerSet.isExist("F003"));
+        assertNull(flowerSet.getFlowerById("X001"));
+        assertNull(flowerSet.getFlowerById(null));
+        assertFalse(flowerSet.addFlower(flower("f001", "Other Rose", 1, "Rose")));
+    }
+
+    @Test
+    public void testFindByNameMatchesSubstrings() {
+        addFlowers();
+        assertEquals(Arrays.asList("F001", "F002", "F100"), sortedIds(flowerSet.findByName("rose")));
+        assertEquals(Arrays.asList("F002"), sortedIds(flowerSet.findByName("TE RO")));
+        // queries shorter than a trigram are matched too
+        assertEquals(Arrays.asList("F010"), sortedIds(flowerSet.findByName("li")));
+        assertEquals(4, flowerSet.findByName("").size());
+        assertTrue(flowerSet.findByName("daisy").isEmpty());
+        Flower f = flowerSet.getFlowerById("F010");
+        flowerSet.updateFlower(f, "Daisy", null, null, null);
+        assertTrue(flowerSet.findByName("tulip").isEmpty());
+        assertEquals(Arrays.asList("F010"), sortedIds(flowerSet.findByName("aisy")));
+        flowerSet.removeFlower(flowerSet.getFlowerById("F100"));
+        assertEquals(Arrays.asList("F001", "F002"), sortedIds(flowerSet.findByName("rose")));
+    }
+
+    @Test
+    public void testCatalogIsInFlowerIdOrder() {
+        assertTrue(flowerSet.addFlower(flower("F999", "Lotus", 9, "Lotus")));
+        addFlowers();
+        assertTrue(flowerSet.addFlower(flower("F000", "Lily", 1, "Lily")));
+        assertEquals(6, flowerSet.size());
+        assertEquals(Arrays.asList("F000", "F001", "F002", "F010", "F100", "F999"), ids(new ArrayList<>(flowerSet)));
+        assertEquals("Tulip", flowerSet.getFlower(10).getName());
+        assertNull(flowerSet.getFlower(3));
+        assertNull(flowerSet.getFlower(-1));
+        assertNull(flowerSet.getFlower(1000));
+        // IDs outside the FXXX space are refused
+        assertFalse(flowerSet.addFlower(flower("F1000", "Orchid", 1, "Orchid")));
+        assertFalse(flowerSet.addFlower(flower("F01", "Orchid", 1, "Orchid")));
+        flowerSet.removeFlower(flowerSet.getFlowerById("F001"));
+        assertEquals(5, flowerSet.size());
+        assertFalse(flowerSet.contains(flower("F001", "Red Rose", 2.5, "Rose")));
+    }
+
+    @Test
+    public void testFindByCategoryAndPrice() {
+        addFlowers();
+        assertEquals(Arrays.asList("F001", "F002"), ids(flowerSet.findByCategory("ROSE")));
+        assertEquals(Arrays.asList("F010", "F001"), ids(flowerSet.findByPrice(1.5, 2.5)));
+        assertEquals(Arrays.asList("F002", "F100"), ids(flowerSet.findByPrice(3, 3)));
+        assertEquals(Arrays.asList("F002"), ids(flowerSet.findByCategory("rose", 2.6, 10)));
+        assertTrue(flowerSet.findByPrice(5, 1).isEmpty());
+        assertTrue(flowerSet.findByCategory("Lotus").isEmpty());
+        flowerSet.updateFlower(flowerSet.getFlowerById("F002"), null, null, 1.0, "Herb");
+        assertEquals(Arrays.asList("F001"), ids(flowerSet.findByCategory("rose")));
+        assertEquals(Arrays.asList("F002", "F100"), ids(flowerSet.findByCategory("herb")));
+        assertEquals(Arrays.asList("F002", "F010"), ids(flowerSet.findByPrice(0, 2)));
+        flowerSet.removeFlower(flowerSet.getFlowerById("F010"));
+        assertEquals(Arrays.asList("F002"), ids(flowerSet.findByPrice(0, 2)));
+    }
+
+    @Test
+    public void testConcurrentAdds() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            results.add(pool.submit(() -> {
+                int added = 0;
+                // every thread tries every ID; each ID is added once
+                for (int n = 0; n < 1000; n++) {
+                    if (flowerSet.addFlower(flower(String.format("F%03d", n), "Flower " + n, n, "Mixed"))) {
+                        added++;
+                    }
+                }
+                return added;
+            }));
+        }
+        int added = 0;
+        for (Future<Integer> r : results) {
+            added += r.get();
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+        assertEquals(1000, added);
+        assertEquals(1000, flowerSet.size());
+        assertEquals(1000, flowerSet.findByCategory("mixed").size());
+        assertEquals(1000, flowerSet.takeChanged().size());
+    }
+
+    @Test
+    public void testCopyIsASnapshot() {
+        addFlowers();
+        List<Flower> snapshot = new ArrayList<>(flowerSet);
+        Flower updated = flowerSet.updateFlower(flowerSet.getFlowerById("F001"), null, null, 9.0, null);
+        assertEquals(9, updated.getUnitPrice(), 0);
+        assertEquals(2.5, snapshot.get(0).getUnitPrice(), 0);
+        assertEquals(9, flowerSet.getFlowerById("F001").getUnitPrice(), 0);
+    }
+}
@@ -0,0 +1,222 @@
+package Bussiness;
+
+import Model.Flower;
+import Model.Order;
+import Model.OrderDetail;
+import Tools.OrderArchive;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of the queries over the orders of the collection and of the order
+ * archive.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class OrderManagementTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private final OrderManagement orderSet = new OrderManagement();
+
+    private static List<OrderDetail> detail(String flowerId) {
+        return Collections.singletonList(new OrderDetail("0001", flowerId, 1, 2.5));
+    }
+
+    private static Order order(String orderId, LocalDate date) {
+        return new Order(orderId, date, "Nguyen Van A", detail("F001"));
+    }
+
+    private static List<String> ids(List<Order> orders) {
+        return orders.stream().map(Order::getOrderId).collect(Collectors.toList());
+    }
+
+    /**
+     * Opens an archive of three orders, then adds two orders to the
+     * collection.
+     */
+    private void openArchive() {
+        String dir = folder.getRoot().getPath();
+        assertTrue(OrderArchive.save(dir, 1, Arrays.asList(
+                order("0001", LocalDate.of(2024, 1, 10)),
+                order("0002", LocalDate.of(2024, 2, 5)),
+                order("0003", LocalDate.of(2024, 3, 1))), 3));
+        orderSet.openData(dir);
+        orderSet.addOrder(LocalDate.of(2024, 2, 5), "Tran Thi B", detail("F002"));
+        orderSet.addOrder(LocalDate.of(2024, 1, 1), "Tran Thi B", detail("F002"));
+    }
+
+    @Test
+    public void testStreamByDateMergesTheArchive() {
+        openArchive();
+        List<Order> orders = orderSet.streamByDate(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 29)).collect(Collectors.toList());
+        assertEquals(Arrays.asList("0005", "0001", "0002", "0004"), ids(orders));
+        assertEquals(Arrays.asList("0001", "0002"),
+                ids(orderSet.findByDate(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 2, 29), 1, 2)));
+        assertEquals(0, orderSet.streamByDate(LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 1)).count());
+    }
+
+    @Test
+    public void testIsInOrder() {
+        Flower rose = new Flower("F001", "Rose", LocalDate.of(2024, 1, 15), 2.5, "red");
+        Flower tulip = new Flower("F002", "Tulip", LocalDate.of(2024, 1, 15), 1.5, "yellow");
+        assertFalse(orderSet.isInOrder(rose));
+        Order o = orderSet.addOrder(LocalDate.of(2024, 1, 20), "Nguyen Van A", detail("F001"));
+        assertTrue(orderSet.isInOrder(rose));
+        assertFalse(orderSet.isInOrder(tulip));
+        assertEquals(Arrays.asList(o.getOrderId()), ids(orderSet.getOrdersByFlowerId("F001")));
+        orderSet.remove(o);
+        assertFalse(orderSet.isInOrder(rose));
+        assertTrue(orderSet.getOrdersByFlowerId("F001").isEmpty());
+    }
+
+    @Test
+    public void testRunningTotals() {
+        Order o = new Order("0001", LocalDate.of(2024, 1, 15), "Nguyen Van A", Arrays.asList(
+                new OrderDetail("0001", "F001", 3, 7.5), new OrderDetail("0002", "F002", 2, 3)));
+        assertEquals(5, o.getQuantity());
+        assertEquals(10.5, o.getFlowerCost(), 0);
+        orderSet.add(o);
+        orderSet.add(order("0002", LocalDate.of(2024, 1, 15)));
+        assertEquals(6, orderSet.getTotalQuantity());
+        assertEquals(13, orderSet.getTotalCost(), 1e-9);
+        orderSet.remove(o);
+        assertEquals(1, orderSet.getTotalQuantity());
+        assertEquals(2.5, orderSet.getTotalCost(), 1e-9);
+        orderSet.clear();
+        assertEquals(0, orderSet.getTotalQuantity());
+    }
+
+    @Test
+    public void testFlowerQueriesIncludeTheArchive() {
+        openArchive();
+        assertTrue(orderSet.isInOrder(new Flower("F001", "Rose", LocalDate.of(2024, 1, 15), 2.5, "red")));
+        assertFalse(orderSet.isInOrder(new Flower("F003", "Lily", LocalDate.of(2024, 1, 15), 2.5, "white")));
+        assertEquals(Arrays.asList("0001", "0002", "0003"), ids(orderSet.getOrdersByFlowerId("F001")));
+        assertEquals(Arrays.asList("0004", "0005"), ids(orderSet.getOrdersByFlowerId("F002")));
+    }
+
+    @Test
+    public void testHasOrder() {
+        openArchive();
+        assertTrue(orderSet.hasOrder("0001"));
+        assertTrue(orderSet.hasOrder("0003"));
+        assertTrue(orderSet.hasOrder("0005"));
+        assertFalse(orderSet.hasOrder("0006"));
+        assertFalse(orderSet.hasOrder("0000"));
+        assertFalse(orderSet.hasOrder("X001"));
+        assertEquals(5, orderSet.getLastOrderId());
+    }
+
+    @Test
+    public void testOrderIdsAreNeverReused() {
+        openArchive();
+        assertEquals(5, orderSet.getOrderCount());
+        OrderManagement reopened = new OrderManagement();
+        reopened.openData(folder.getRoot().getPath());
+        // orders 0004 and 0005 were never written to the archive
+        assertEquals("0004", reopened.addOrder(LocalDate.of(2024, 4, 1), "Le Van C", detail("F001")).getOrderId());
+    }
+
+    @Test
+    public void testConcurrentOrdersGetDistinctIds() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<List<String>>> results = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            results.add(pool.submit(() -> {
+                List<String> list = new ArrayList<>();
+                for (int i = 0; i < 500; i++) {
+                    list.add(orderSet.addOrder(LocalDate.of(2024, 1, 1 + i % 28), "Nguyen Van A", detail("F001")).getOrderId());
+                }
+                return list;
+            }));
+        }
+        Set<String> ids = new HashSet<>();
+        for (Future<List<String>> r : results) {
+            ids.addAll(r.get());
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+        assertEquals(4000, ids.size());
+        assertEquals(4000, orderSet.size());
+        assertEquals(4000, orderSet.getLastOrderId());
+        assertEquals(4000, orderSet.takeAdded().size());
+        assertEquals(4000, orderSet.getTotalQuantity());
+        assertEquals("4001", orderSet.addOrder(LocalDate.of(2024, 2, 1), "Nguyen Van A", detail("F001")).getOrderId());
+    }
+
+    @Test
+    public void testSortedViewsMatchASort() {
+        openArchive();
+        Random random = new Random(7);
+        for (int i = 0; i < 50; i++) {
+            orderSet.addOrder(LocalDate.of(2024, 1 + random.nextInt(6), 1 + random.nextInt(28)), "Customer " + (char) ('A' + random.nextInt(5)),
+                    Collections.singletonList(new OrderDetail("0001", "F001", 1 + random.nextInt(5), random.nextInt(100))));
+        }
+        List<Order> all = orderSet.sort(1, false);
+        assertEquals(55, all.size());
+        for (int field = 1; field <= 4; field++) {
+            List<Order> expected = new ArrayList<>(all);
+            expected.sort(OrderManagement.comparator(field));
+            assertEquals(ids(expected), ids(orderSet.sort(field, false)));
+            Collections.reverse(expected);
+            assertEquals(ids(expected), ids(orderSet.sort(field, true)));
+            assertEquals(ids(expected.subList(10, 20)), ids(orderSet.sort(field, true, 10, 10)));
+        }
+        Order removed = orderSet.getOrderById("0004");
+        orderSet.remove(removed);
+        assertEquals(54, orderSet.sort(3, false).size());
+        assertFalse(orderSet.sort(4, true).contains(removed));
+    }
+
+    @Test
+    public void testParallelPathsMatchSequential() {
+        Random random = new Random(11);
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            orders.add(new Order(OrderManagement.formatId(i + 1), LocalDate.of(2024, 1, 1).plusDays(random.nextInt(365)), "Nguyen Van A",
+                    Collections.singletonList(new OrderDetail("0001", "F001", 1 + random.nextInt(9), random.nextInt(100000) / 100.0))));
+        }
+        assertEquals(OrderManagement.totalQuantity(orders, false), OrderManagement.totalQuantity(orders, true));
+        assertEquals(OrderManagement.totalCost(orders, false), OrderManagement.totalCost(orders, true), 0);
+        Order[] sequential = orders.toArray(new Order[0]);
+        Order[] parallel = orders.toArray(new Order[0]);
+        OrderManagement.sort(sequential, OrderManagement.comparator(4), false);
+        OrderManagement.sort(parallel, OrderManagement.comparator(4), true);
+        assertArrayEquals(sequential, parallel);
+    }
+
+    @Test
+    public void testLargeArchiveIsSortedInParallel() {
+        int n = OrderManagement.PARALLEL_THRESHOLD + 1;
+        Random random = new Random(13);
+        List<Order> orders = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            orders.add(new Order(OrderManagement.formatId(i + 1), LocalDate.of(2020, 1, 1).plusDays(random.nextInt(1500)), "Nguyen Van A",
+                    Collections.singletonList(new OrderDetail("0001", "F001", 1, random.nextInt(1000)))));
+        }
+        String dir = folder.getRoot().getPath();
+        assertTrue(OrderArchive.save(dir, 1, orders, n));
+        orderSet.openData(dir);
+        assertTrue(OrderManagement.isParallel(orderSet.getOrderCount()));
+        List<Order> expected = new ArrayList<>(orders);
+        expected.sort(OrderManagement.comparator(4));
+        assertEquals(ids(expected.subList(0, 100)), ids(orderSet.sort(4, false, 0, 100)));
+        assertEquals(ids(expected.subList(n - 100, n)), ids(orderSet.sort(4, false, n - 100, 100)));
+    }
+}
@@ -0,0 +1,135 @@
+package Bussiness;
+
+import Model.Order;
+import Model.OrderDetail;
+import Tools.Days;
+import Tools.OrderArchive;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of the sales rollups, checked against sums over the orders.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class SalesRollupTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private final SalesRollup rollup = new SalesRollup();
+    private final List<Order> orders = new ArrayList<>();
+
+    private Order add(String orderId, int day, String flowerId, int quantity, double cost) {
+        Order o = new Order(orderId, day, "Nguyen Van A", Arrays.asList(new OrderDetail("0001", flowerId, quantity, cost)));
+        rollup.add(o);
+        orders.add(o);
+        return o;
+    }
+
+    private long quantity(int startDay, int endDay) {
+        long quantity = 0;
+        for (Order o : orders) {
+            if (o.getOrderDay() != Days.NONE && o.getOrderDay() >= startDay && o.getOrderDay() <= endDay) {
+                quantity += o.getQuantity();
+            }
+        }
+        return quantity;
+    }
+
+    private double revenue(int startDay, int endDay) {
+        double revenue = 0;
+        for (Order o : orders) {
+            if (o.getOrderDay() != Days.NONE && o.getOrderDay() >= startDay && o.getOrderDay() <= endDay) {
+                revenue += o.getFlowerCost();
+            }
+        }
+        return revenue;
+    }
+
+    @Test
+    public void testWindowGrowsBothWays() {
+        int base = Days.of(LocalDate.of(2024, 6, 15));
+        // the first day opens the window; the later days fall before and
+        // after it, so the window is moved and widened several times
+        int[] offsets = {0, 1, -1, 600, -600, 3000, -5000, 20000, 0, 1};
+        for (int i = 0; i < offsets.length; i++) {
+            add(OrderManagement.formatId(i + 1), base + offsets[i], "F001", i + 1, (i + 1) * 2.5);
+        }
+        for (int from : new int[]{-6000, -600, -1, 0, 2, 3000}) {
+            for (int to : new int[]{-600, 0, 1, 600, 19999, 20000, 30000}) {
+                assertEquals(quantity(base + from, base + to), rollup.getQuantity(base + from, base + to));
+                assertEquals(revenue(base + from, base + to), rollup.getRevenue(base + from, base + to), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testDaysBeyondTheWindowAreKeptApart() {
+        int base = Days.of(LocalDate.of(2024, 1, 1));
+        add("0001", base, "F001", 1, 1);
+        // more than MAX_DAYS after the first day
+        add("0002", base + 70000, "F001", 2, 2);
+        add("0003", base - 70000, "F002", 4, 4);
+        add("0004", Days.NONE, "F002", 8, 8);
+        assertEquals(1, rollup.getQuantity(base, base));
+        assertEquals(2, rollup.getQuantity(base + 70000, base + 70000));
+        assertEquals(7, rollup.getQuantity(base - 70000, base + 70000));
+        assertEquals(7, rollup.getRevenue(Integer.MIN_VALUE + 1, Integer.MAX_VALUE), 1e-9);
+        // an undated order counts for its flower only
+        assertEquals(12, rollup.getFlowerQuantity("F002"));
+        assertEquals(12, rollup.getFlowerRevenue("f002"), 1e-9);
+    }
+
+    @Test
+    public void testRandomOrdersMatchSums() {
+        Random random = new Random(42);
+        int base = Days.of(LocalDate.of(2020, 1, 1));
+        for (int i = 0; i < 2000; i++) {
+            add(OrderManagement.formatId(i + 1), base + random.nextInt(4000) - 2000, "F00" + random.nextInt(10),
+                    1 + random.nextInt(20), random.nextInt(10000) / 100.0);
+        }
+        for (int i = 0; i < 200; i++) {
+            int from = base + random.nextInt(5000) - 2500;
+            int to = from + random.nextInt(1500);
+            assertEquals(quantity(from, to), rollup.getQuantity(from, to));
+            assertEquals(revenue(from, to), rollup.getRevenue(from, to), 1e-6);
+        }
+        YearMonth month = YearMonth.of(2020, 2);
+        assertEquals(quantity(Days.of(month.atDay(1)), Days.of(month.atEndOfMonth())), rollup.getQuantity(month));
+    }
+
+    @Test
+    public void testRemoveTakesAnOrderOut() {
+        int day = Days.of(LocalDate.of(2024, 3, 1));
+        add("0001", day, "F001", 3, 7.5);
+        Order o = add("0002", day + 40, "F001", 2, 5);
+        rollup.remove(o);
+        assertEquals(3, rollup.getQuantity(day, day + 40));
+        assertEquals(7.5, rollup.getRevenue(day, day + 40), 1e-9);
+        assertEquals(3, rollup.getFlowerQuantity("F001"));
+    }
+
+    @Test
+    public void testArchiveIsRolledUpOnFirstRead() {
+        String dir = folder.getRoot().getPath();
+        int day = Days.of(LocalDate.of(2024, 1, 10));
+        assertTrue(OrderArchive.save(dir, 1, Arrays.asList(
+                new Order("0001", day, "Nguyen Van A", Arrays.asList(new OrderDetail("0001", "F001", 2, 5))),
+                new Order("0002", day + 31, "Nguyen Van A", Arrays.asList(new OrderDetail("0001", "F002", 3, 6)))), 2));
+        OrderManagement orderSet = new OrderManagement();
+        orderSet.openData(dir);
+        orderSet.addOrder(LocalDate.of(2024, 1, 20), "Tran Thi B", Arrays.asList(new OrderDetail("0001", "F001", 1, 2.5)));
+        SalesRollup sales = orderSet.getRollup();
+        assertEquals(3, sales.getQuantity(YearMonth.of(2024, 1)));
+        assertEquals(3, sales.getQuantity(YearMonth.of(2024, 2)));
+        assertEquals(7.5, sales.getFlowerRevenue("F001"), 1e-9);
+    }
+}
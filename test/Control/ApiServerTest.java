@@ -0,0 +1,196 @@
+package Control;
+
+import Bussiness.StoreManagement;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import static org.junit.Assert.*;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of the REST API, run against a store kept in a temporary directory.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class ApiServerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private StoreManagement store;
+    private ApiServer server;
+
+    /**
+     * The status and the body of a response.
+     */
+    private static class Response {
+
+        final int status;
+        final String body;
+
+        Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        System.setProperty("store.dir", folder.getRoot().getPath());
+        System.setProperty("store.autosaveSeconds", "0");
+        start();
+    }
+
+    @After
+    public void tearDown() {
+        stop();
+        System.clearProperty("store.dir");
+        System.clearProperty("store.autosaveSeconds");
+    }
+
+    private void start() throws IOException {
+        store = new StoreManagement();
+        if (!store.isLoaded()) {
+            store.loadData();
+        }
+        server = new ApiServer(store, 0);
+        server.start();
+    }
+
+    private void stop() {
+        server.stop();
+        store.close();
+    }
+
+    private Response request(String method, String path, String body) throws IOException {
+        HttpURLConnection con = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + path).openConnection();
+        con.setRequestMethod(method);
+        if (body != null) {
+            con.setDoOutput(true);
+            con.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = con.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = con.getResponseCode();
+        InputStream in = status < 400 ? con.getInputStream() : con.getErrorStream();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        if (in != null) {
+            try (InputStream i = in) {
+                byte[] buf = new byte[4096];
+                int n;
+                while ((n = i.read(buf)) > 0) {
+                    bytes.write(buf, 0, n);
+                }
+            }
+        }
+        con.disconnect();
+        return new Response(status, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private void addFlower(String flowerId, String name, double unitPrice, String category) throws IOException {
+        Response r = request("POST", "/flowers", "{\"flowerId\":\"" + flowerId + "\",\"name\":\"" + name
+                + "\",\"importDate\":\"15/01/2024\",\"unitPrice\":" + unitPrice + ",\"category\":\"" + category + "\"}");
+        assertEquals(r.body, 201, r.status);
+    }
+
+    @Test
+    public void testFlowers() throws IOException {
+        addFlower("F001", "Red Rose", 2.5, "Rose");
+        addFlower("f002", "Tulip", 1.5, "Tulip");
+        Response r = request("GET", "/flowers/F002", null);
+        assertEquals(200, r.status);
+        assertTrue(r.body, r.body.contains("\"flowerId\":\"F002\""));
+        r = request("GET", "/flowers?name=rose", null);
+        assertEquals(200, r.status);
+        assertTrue(r.body, r.body.contains("F001") && !r.body.contains("F002"));
+        r = request("GET", "/flowers?category=tulip&maxPrice=2", null);
+        assertTrue(r.body, r.body.contains("F002") && !r.body.contains("F001"));
+        r = request("PUT", "/flowers/F001", "{\"unitPrice\":4}");
+        assertEquals(200, r.status);
+        assertTrue(r.body, r.body.contains("4.0"));
+        assertEquals(404, request("GET", "/flowers/F003", null).status);
+        assertEquals(404, request("PUT", "/flowers/F003", "{\"unitPrice\":4}").status);
+        assertEquals(204, request("DELETE", "/flowers/F002", null).status);
+        assertEquals(404, request("DELETE", "/flowers/F002", null).status);
+        assertEquals(405, request("DELETE", "/flowers", null).status);
+    }
+
+    @Test
+    public void testBadRequests() throws IOException {
+        addFlower("F001", "Red Rose", 2.5, "Rose");
+        Response r = request("POST", "/flowers", "{\"flowerId\":\"F001\",\"name\":\"Red Rose\","
+                + "\"importDate\":\"15/01/2024\",\"unitPrice\":2.5,\"category\":\"Rose\"}");
+        assertEquals(409, r.status);
+        assertEquals(400, request("POST", "/flowers", "{\"flowerId\":\"X1\"}").status);
+        assertEquals(400, request("POST", "/flowers", "[1,2]").status);
+        assertEquals(400, request("POST", "/flowers", "{\"flowerId\":").status);
+        assertEquals(400, request("GET", "/orders?from=31/02/2024", null).status);
+        assertEquals(400, request("GET", "/orders?limit=-1", null).status);
+        assertEquals(400, request("POST", "/orders", "{\"orderDate\":\"01/02/2024\",\"customerName\":\"Tho\","
+                + "\"details\":[{\"flowerId\":\"F009\",\"quantity\":1}]}").status);
+        char[] big = new char[ApiServer.MAX_BODY + 1];
+        Arrays.fill(big, ' ');
+        r = request("POST", "/flowers", new String(big));
+        assertEquals(413, r.status);
+        assertFalse(r.body, r.body.contains("Exception"));
+    }
+
+    @Test
+    public void testOrdersCustomersAndSales() throws IOException {
+        addFlower("F001", "Red Rose", 2.5, "Rose");
+        addFlower("F002", "Tulip", 1.5, "Tulip");
+        Response r = request("POST", "/orders", "{\"orderDate\":\"01/02/2024\",\"customerName\":\"Tho Nguyen\","
+                + "\"details\":[{\"flowerId\":\"F001\",\"quantity\":2},{\"flowerId\":\"f002\",\"quantity\":4}]}");
+        assertEquals(r.body, 201, r.status);
+        assertTrue(r.body, r.body.contains("\"orderId\":\"0001\""));
+        r = request("POST", "/orders", "{\"orderDate\":\"05/03/2024\",\"customerName\":\"Tran Thi B\","
+                + "\"details\":[{\"flowerId\":\"F002\",\"quantity\":1}]}");
+        assertEquals(201, r.status);
+        r = request("GET", "/orders?from=01/03/2024&to=31/03/2024", null);
+        assertEquals(200, r.status);
+        assertTrue(r.body, r.body.contains("\"orderId\":\"0002\"") && !r.body.contains("\"orderId\":\"0001\""));
+        r = request("GET", "/orders?sort=total&desc=true", null);
+        assertEquals(200, r.status);
+        assertTrue(r.body, r.body.indexOf("\"orderId\":\"0001\"") < r.body.indexOf("\"orderId\":\"0002\""));
+        r = request("GET", "/customers/tho%20nguyen", null);
+        assertEquals(200, r.status);
+        assertTrue(r.body, r.body.contains("\"orderCount\":1") && r.body.contains("\"quantity\":6"));
+        r = request("GET", "/sales?from=01/01/2024&to=29/02/2024", null);
+        assertEquals("{\"quantity\":6,\"revenue\":11.0}", r.body);
+        r = request("GET", "/sales?flowerId=F002", null);
+        assertEquals("{\"quantity\":5,\"revenue\":7.5}", r.body);
+        r = request("GET", "/sales?category=tulip", null);
+        assertEquals("{\"quantity\":5,\"revenue\":7.5}", r.body);
+        assertEquals(409, request("DELETE", "/flowers/F001", null).status);
+        assertEquals(404, request("GET", "/orders/0001", null).status);
+    }
+
+    @Test
+    public void testChangesSurviveARestart() throws IOException {
+        addFlower("F001", "Red Rose", 2.5, "Rose");
+        assertEquals(201, request("POST", "/orders", "{\"orderDate\":\"01/02/2024\",\"customerName\":\"Tho\","
+                + "\"details\":[{\"flowerId\":\"F001\",\"quantity\":2}]}").status);
+        // the changes are only in the journal; they are replayed on start
+        stop();
+        start();
+        assertTrue(store.isLoaded());
+        assertEquals(200, request("GET", "/flowers/F001", null).status);
+        Response r = request("POST", "/orders", "{\"orderDate\":\"02/02/2024\",\"customerName\":\"Tho\","
+                + "\"details\":[{\"flowerId\":\"F001\",\"quantity\":1}]}");
+        assertTrue(r.body, r.body.contains("\"orderId\":\"0002\""));
+        store.saveSnapshot();
+        stop();
+        start();
+        r = request("GET", "/customers/Tho", null);
+        assertTrue(r.body, r.body.contains("\"orderCount\":2"));
+    }
+}
@@ -0,0 +1,141 @@
+package Tools;
+
+import Model.Flower;
+import Model.Order;
+import Model.OrderDetail;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of the replay of the journal, including the torn tail a crash leaves
+ * behind.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class JournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    private File file;
+    private Journal journal;
+
+    /**
+     * Records the entries replayed, one line per entry.
+     */
+    private static class Recorder implements Journal.Handler {
+
+        private final List<String> entries = new ArrayList<>();
+
+        @Override
+        public void addFlower(Flower f) {
+            entries.add("add " + f.getFlowerId() + " " + f.getUnitPrice());
+        }
+
+        @Override
+        public void updateFlower(Flower f) {
+            entries.add("update " + f.getFlowerId() + " " + f.getUnitPrice());
+        }
+
+        @Override
+        public void deleteFlower(String flowerId) {
+            entries.add("delete " + flowerId);
+        }
+
+        @Override
+        public void addOrder(Order o) {
+            entries.add("order " + o.getOrderId() + " " + o.getQuantity());
+        }
+    }
+
+    @Before
+    public void setUp() {
+        file = new File(folder.getRoot(), "journal");
+        journal = new Journal(file.getPath());
+        journal.logAddFlower(new Flower("F001", "Rose", LocalDate.of(2024, 1, 15), 2.5, "red"));
+        journal.logUpdateFlower(new Flower("F001", "Rose", LocalDate.of(2024, 1, 15), 3.0, "red"));
+        journal.logAddOrder(new Order("O001", LocalDate.of(2024, 2, 1), "Nguyen Van A",
+                Collections.singletonList(new OrderDetail("D001", "F001", 4, 12))));
+        journal.logDeleteFlower("F001");
+        journal.close();
+    }
+
+    @Test
+    public void testReplay() {
+        Recorder recorder = new Recorder();
+        assertEquals(4, journal.replay(recorder));
+        assertEquals("[add F001 2.5, update F001 3.0, order O001 4, delete F001]", recorder.entries.toString());
+    }
+
+    @Test
+    public void testTornTailIsTruncated() throws Exception {
+        long size = file.length();
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            out.seek(size);
+            // the header of an entry whose payload was never written
+            out.writeInt(100);
+            out.writeInt(0);
+            out.writeByte(Journal.ADD_FLOWER);
+        }
+        Recorder recorder = new Recorder();
+        assertEquals(4, journal.replay(recorder));
+        assertEquals(size, file.length());
+        journal.logDeleteFlower("F002");
+        journal.close();
+        assertEquals(5, journal.replay(new Recorder()));
+    }
+
+    @Test
+    public void testCorruptEntryIsTruncated() throws Exception {
+        File first = new File(folder.getRoot(), "first");
+        Journal one = new Journal(first.getPath());
+        one.logAddFlower(new Flower("F001", "Rose", LocalDate.of(2024, 1, 15), 2.5, "red"));
+        one.close();
+        long size = first.length();
+        try (RandomAccessFile out = new RandomAccessFile(file, "rw")) {
+            // flip a byte of the second entry's payload
+            out.seek(size + 9);
+            int b = out.read();
+            out.seek(size + 9);
+            out.write(b ^ 0xFF);
+        }
+        Recorder recorder = new Recorder();
+        assertEquals(1, journal.replay(recorder));
+        assertEquals("[add F001 2.5]", recorder.entries.toString());
+        assertEquals(size, file.length());
+    }
+
+    @Test
+    public void testRotatedJournalIsReplayedFirst() {
+        assertTrue(journal.rotate());
+        journal.logAddFlower(new Flower("F002", "Tulip", LocalDate.of(2024, 1, 15), 1.0, "yellow"));
+        journal.close();
+        Recorder recorder = new Recorder();
+        assertEquals(5, journal.replay(recorder));
+        assertEquals("add F002 1.0", recorder.entries.get(4));
+    }
+
+    @Test
+    public void testRestoredJournalCanBeRotatedAgain() {
+        assertTrue(journal.rotate());
+        assertFalse(journal.rotate());
+        journal.logDeleteFlower("F002");
+        // a fold that has failed puts the rotated entries back in front
+        journal.restoreRotated();
+        assertFalse(journal.isRotated());
+        assertEquals(5, journal.getEntries());
+        assertTrue(journal.rotate());
+        journal.close();
+        Recorder recorder = new Recorder();
+        assertEquals(5, journal.replay(recorder));
+        assertEquals("[add F001 2.5, update F001 3.0, order O001 4, delete F001, delete F002]", recorder.entries.toString());
+    }
+}
@@ -0,0 +1,196 @@
+package Tools;
+
+import Model.Order;
+import Model.OrderDetail;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of the partitioning of the order archive and of the conversion of a
+ * version 1 manifest.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class OrderArchiveTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static Order order(String orderId, LocalDate date) {
+        return order(orderId, date, "F001");
+    }
+
+    private static Order order(String orderId, LocalDate date, String flowerId) {
+        return new Order(orderId, date, "Nguyen Van A",
+                Collections.singletonList(new OrderDetail("D001", flowerId, 1, 2.5)));
+    }
+
+    private static int day(int year, int month, int dayOfMonth) {
+        return Days.of(LocalDate.of(year, month, dayOfMonth));
+    }
+
+    private static long millis(LocalDate date) {
+        return date.atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Test
+    public void testKeyOf() {
+        assertEquals("2024-05", OrderArchive.keyOf(day(2024, 5, 15), 1));
+        assertEquals("2024-04", OrderArchive.keyOf(day(2024, 5, 15), 3));
+        assertEquals("2024-01", OrderArchive.keyOf(day(2024, 5, 15), 12));
+        assertEquals("2024-10", OrderArchive.keyOf(day(2024, 12, 31), 3));
+        assertEquals("0999-01", OrderArchive.keyOf(day(999, 1, 1), 1));
+        assertEquals("undated", OrderArchive.keyOf(Days.NONE, 3));
+    }
+
+    @Test
+    public void testSavePartitionsByPeriod() throws Exception {
+        String dir = folder.getRoot().getPath();
+        List<Order> orders = Arrays.asList(
+                order("O001", LocalDate.of(2024, 1, 10)),
+                order("O002", LocalDate.of(2024, 2, 20)),
+                order("O003", LocalDate.of(2024, 4, 1)),
+                order("O004", null));
+        assertTrue(OrderArchive.save(dir, 3, orders, 4));
+        try (OrderArchive archive = OrderArchive.open(dir)) {
+            assertEquals(3, archive.getMonths());
+            assertEquals(3, archive.getPartitionCount());
+            assertEquals(4, archive.size());
+            assertEquals(4, archive.getLastOrderId());
+            List<Order> found = archive.findByDate(day(2024, 2, 1), day(2024, 3, 31));
+            assertEquals(1, found.size());
+            assertEquals("O002", found.get(0).getOrderId());
+            assertEquals(3, archive.findByDate(day(2024, 1, 1), day(2024, 12, 31)).size());
+        }
+    }
+
+    @Test
+    public void testAppendKeepsClosedPartitionFiles() throws Exception {
+        String dir = folder.getRoot().getPath();
+        assertTrue(OrderArchive.save(dir, 1, Collections.singletonList(order("O001", LocalDate.of(2024, 1, 10))), 1));
+        File first = new File(dir, "2024-01.1.dat");
+        long size = first.length();
+        assertTrue(OrderArchive.append(dir, 1, Arrays.asList(
+                order("O002", LocalDate.of(2024, 1, 11)),
+                order("O003", LocalDate.of(2024, 3, 5))), 3));
+        assertEquals(size, first.length());
+        assertTrue(new File(dir, "2024-01.2.dat").exists());
+        try (OrderArchive archive = OrderArchive.open(dir)) {
+            assertEquals(2, archive.getPartitionCount());
+            assertEquals(3, archive.size());
+            assertEquals(2, archive.findByDate(day(2024, 1, 1), day(2024, 1, 31)).size());
+            assertEquals(3, archive.getLastOrderId());
+        }
+    }
+
+    @Test
+    public void testUnlistedFilesAreDeletedLater() throws Exception {
+        String dir = folder.getRoot().getPath();
+        assertTrue(OrderArchive.save(dir, 1, Collections.singletonList(order("O001", LocalDate.of(2024, 1, 10))), 1));
+        // left behind by a save that could not delete it
+        File stale = new File(dir, "2023-12.1.dat");
+        Files.write(stale.toPath(), new byte[]{1, 2, 3});
+        assertTrue(OrderArchive.append(dir, 1, Collections.singletonList(order("O002", LocalDate.of(2024, 1, 11))), 2));
+        assertFalse(stale.exists());
+        assertTrue(new File(dir, "2024-01.1.dat").exists());
+    }
+
+    @Test
+    public void testIterateByDateIsInDateOrder() throws Exception {
+        String dir = folder.getRoot().getPath();
+        assertTrue(OrderArchive.save(dir, 1, Arrays.asList(
+                order("O001", LocalDate.of(2024, 2, 20)),
+                order("O002", LocalDate.of(2024, 1, 10)),
+                order("O003", LocalDate.of(2024, 2, 5)),
+                order("O004", LocalDate.of(2024, 1, 10)),
+                order("O005", null),
+                order("O006", LocalDate.of(2024, 3, 1))), 6));
+        try (OrderArchive archive = OrderArchive.open(dir)) {
+            List<String> ids = new ArrayList<>();
+            Iterator<Order> it = archive.iterateByDate(day(2024, 1, 10), day(2024, 2, 20));
+            while (it.hasNext()) {
+                ids.add(it.next().getOrderId());
+            }
+            assertEquals(Arrays.asList("O002", "O004", "O003", "O001"), ids);
+            assertFalse(archive.iterateByDate(day(2024, 4, 1), day(2024, 4, 30)).hasNext());
+        }
+    }
+
+    @Test
+    public void testFlowersAreListedPerPartition() throws Exception {
+        String dir = folder.getRoot().getPath();
+        assertTrue(OrderArchive.save(dir, 1, Arrays.asList(
+                order("O001", LocalDate.of(2024, 1, 10), "F001"),
+                order("O002", LocalDate.of(2024, 2, 20), "F002")), 2));
+        assertTrue(OrderArchive.append(dir, 1, Collections.singletonList(order("O003", LocalDate.of(2024, 2, 21), "F003")), 3));
+        List<String> manifest = Files.readAllLines(Paths.get(dir, OrderArchive.MANIFEST), StandardCharsets.UTF_8);
+        assertTrue(manifest.contains("flowers 2024-01 F001"));
+        try (OrderArchive archive = OrderArchive.open(dir)) {
+            assertTrue(archive.containsFlower("F003"));
+            assertFalse(archive.containsFlower("F004"));
+            List<Order> found = archive.findByFlower("F002");
+            assertEquals(1, found.size());
+            assertEquals("O002", found.get(0).getOrderId());
+        }
+    }
+
+    @Test
+    public void testFlowersAreCollectedWhenNotListed() throws Exception {
+        String dir = folder.getRoot().getPath();
+        assertTrue(OrderArchive.save(dir, 1, Arrays.asList(
+                order("O001", LocalDate.of(2024, 1, 10), "F001"),
+                order("O002", LocalDate.of(2024, 1, 20), "F002")), 2));
+        Path manifest = Paths.get(dir, OrderArchive.MANIFEST);
+        List<String> lines = new ArrayList<>(Files.readAllLines(manifest, StandardCharsets.UTF_8));
+        lines.removeIf(line -> line.startsWith("flowers "));
+        Files.write(manifest, lines, StandardCharsets.UTF_8);
+        try (OrderArchive archive = OrderArchive.open(dir)) {
+            assertTrue(archive.containsFlower("F002"));
+            assertFalse(archive.containsFlower("F003"));
+            assertEquals(1, archive.findByFlower("F001").size());
+        }
+    }
+
+    @Test
+    public void testVersion1ManifestIsConverted() throws Exception {
+        String dir = folder.getRoot().getPath();
+        LocalDate first = LocalDate.of(2024, 1, 10);
+        LocalDate last = LocalDate.of(2024, 1, 20);
+        assertTrue(StoreFile.saveOrders(Arrays.asList(order("O001", first), order("O002", last)),
+                new File(dir, "2024-01.1.dat").getPath()));
+        Files.write(Paths.get(dir, OrderArchive.MANIFEST), Arrays.asList(
+                "order-archive 1",
+                "months 1",
+                "last 2",
+                "partition 2024-01 " + millis(first) + " " + (millis(last) + 3600000) + " 2024-01.1.dat:1:2"),
+                StandardCharsets.UTF_8);
+        try (OrderArchive archive = OrderArchive.open(dir)) {
+            assertEquals(2, archive.size());
+            assertEquals(1, archive.findByDate(day(2024, 1, 20), day(2024, 1, 20)).size());
+            assertEquals(0, archive.findByDate(day(2024, 1, 21), day(2024, 1, 31)).size());
+        }
+        assertTrue(OrderArchive.append(dir, 1, Collections.singletonList(order("O003", LocalDate.of(2024, 2, 1))), 3));
+        List<String> manifest = Files.readAllLines(Paths.get(dir, OrderArchive.MANIFEST), StandardCharsets.UTF_8);
+        assertEquals("order-archive 2", manifest.get(0));
+        assertTrue(manifest.contains("partition 2024-01 " + Days.of(first) + " " + Days.of(last) + " 2024-01.1.dat:1:2"));
+        try (OrderArchive archive = OrderArchive.open(dir)) {
+            assertEquals(2, archive.getPartitionCount());
+            assertEquals(3, archive.size());
+            assertEquals(3, archive.getLastOrderId());
+        }
+    }
+}
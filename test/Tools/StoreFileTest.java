@@ -0,0 +1,140 @@
+package Tools;
+
+import Model.Flower;
+import Model.Order;
+import Model.OrderDetail;
+import java.io.File;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import static org.junit.Assert.*;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests of the binary storage format and of the migration of files saved
+ * with Java serialization.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class StoreFileTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static List<Flower> flowers() {
+        return Arrays.asList(
+                new Flower("F001", "Rose", LocalDate.of(2024, 1, 15), 2.5, "red"),
+                new Flower("F002", "Tulip", LocalDate.of(2023, 12, 31), 1.25, "yellow"),
+                new Flower("F003", "Lily", Days.NONE, 0, "white"));
+    }
+
+    private static List<Order> orders() {
+        return Arrays.asList(
+                new Order("O001", LocalDate.of(2024, 2, 29), "Nguyen Van A", Arrays.asList(
+                        new OrderDetail("D001", "F001", 3, 7.5),
+                        new OrderDetail("D002", "F002", 2, 2.5))),
+                new Order("O002", Days.NONE, "Tran Thi B", Arrays.asList(
+                        new OrderDetail("D001", "F003", 1, 0))));
+    }
+
+    private static void assertFlowers(List<Flower> expected, List<Flower> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Flower e = expected.get(i);
+            Flower a = actual.get(i);
+            assertEquals(e.getFlowerId(), a.getFlowerId());
+            assertEquals(e.getName(), a.getName());
+            assertEquals(e.getImportDay(), a.getImportDay());
+            assertEquals(e.getUnitPrice(), a.getUnitPrice(), 0);
+            assertEquals(e.getCategory(), a.getCategory());
+        }
+    }
+
+    private static void assertOrders(List<Order> expected, List<Order> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Order e = expected.get(i);
+            Order a = actual.get(i);
+            assertEquals(e.getOrderId(), a.getOrderId());
+            assertEquals(e.getOrderDay(), a.getOrderDay());
+            assertEquals(e.getCustomerName(), a.getCustomerName());
+            assertEquals(e.getQuantity(), a.getQuantity());
+            assertEquals(e.getFlowerCost(), a.getFlowerCost(), 0);
+            assertEquals(e.getOrderDetail().size(), a.getOrderDetail().size());
+            for (int j = 0; j < e.getOrderDetail().size(); j++) {
+                OrderDetail ed = e.getOrderDetail().get(j);
+                OrderDetail ad = a.getOrderDetail().get(j);
+                assertEquals(ed.getOrderDetailId(), ad.getOrderDetailId());
+                assertEquals(ed.getFlowerId(), ad.getFlowerId());
+                assertEquals(ed.getQuantity(), ad.getQuantity());
+                assertEquals(ed.getFlowerCost(), ad.getFlowerCost(), 0);
+            }
+        }
+    }
+
+    @Test
+    public void testFlowerRoundTrip() throws Exception {
+        String file = new File(folder.getRoot(), "flowers.dat").getPath();
+        assertTrue(StoreFile.saveFlowers(flowers(), file));
+        assertTrue(StoreFile.isStoreFile(file));
+        assertEquals(1, StoreFile.segmentCount(file));
+        assertFlowers(flowers(), StoreFile.loadFlowers(file));
+    }
+
+    @Test
+    public void testAppendedFlowerSegment() throws Exception {
+        String file = new File(folder.getRoot(), "flowers.dat").getPath();
+        assertTrue(StoreFile.saveFlowers(flowers(), file));
+        Flower updated = new Flower("F002", "Tulip", LocalDate.of(2023, 12, 31), 1.75, "orange");
+        Flower added = new Flower("F004", "Daisy", LocalDate.of(2024, 3, 1), 0.5, "white");
+        assertTrue(StoreFile.appendFlowers(Arrays.asList(updated, added), Collections.singletonList("F001"), file));
+        assertEquals(2, StoreFile.segmentCount(file));
+        assertFlowers(Arrays.asList(flowers().get(2), updated, added), StoreFile.loadFlowers(file));
+    }
+
+    @Test
+    public void testOrderRoundTrip() throws Exception {
+        String file = new File(folder.getRoot(), "orders.dat").getPath();
+        assertTrue(StoreFile.saveOrders(orders(), file));
+        assertTrue(StoreFile.isStoreFile(file));
+        assertOrders(orders(), StoreFile.loadOrders(file));
+        assertFalse(new File(file + ".tmp").exists());
+        Order added = new Order("O003", LocalDate.of(2024, 3, 1), "Le Van C", Collections.singletonList(
+                new OrderDetail("D001", "F002", 4, 5)));
+        assertTrue(StoreFile.appendOrders(Collections.singletonList(added), file));
+        assertEquals(2, StoreFile.segmentCount(file));
+        List<Order> expected = new ArrayList<>(orders());
+        expected.add(added);
+        assertOrders(expected, StoreFile.loadOrders(file));
+    }
+
+    @Test
+    public void testMigrateLegacyFlowers() throws Exception {
+        String file = new File(folder.getRoot(), "flowers.dat").getPath();
+        assertTrue(FileIO.saveData(flowers(), file));
+        assertFalse(StoreFile.isStoreFile(file));
+        assertFlowers(flowers(), StoreFile.loadFlowers(file));
+        assertTrue(StoreFile.migrate(file));
+        assertTrue(StoreFile.isStoreFile(file));
+        assertFlowers(flowers(), StoreFile.loadFlowers(file));
+    }
+
+    @Test
+    public void testMigrateLegacyOrders() throws Exception {
+        String file = new File(folder.getRoot(), "orders.dat").getPath();
+        assertTrue(FileIO.saveData(orders(), file));
+        assertFalse(StoreFile.isStoreFile(file));
+        assertTrue(StoreFile.migrate(file));
+        assertTrue(StoreFile.isStoreFile(file));
+        assertOrders(orders(), StoreFile.loadOrders(file));
+    }
+
+    @Test
+    public void testMigrateMissingFile() {
+        assertFalse(StoreFile.migrate(new File(folder.getRoot(), "missing.dat").getPath()));
+    }
+}
@@ -0,0 +1,107 @@
+package Tools;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.regex.Pattern;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests that the hand-written input rules accept exactly what the regular
+ * expressions they replace accepted.
+ *
+ * @author Nguyen Truong Tho
+ */
+public class ValidatorTest {
+
+    private static final Pattern FLOWER_ID = Pattern.compile("^[fF][0-9]{3,3}$");
+    private static final Pattern FLOWER_NAME = Pattern.compile("^[a-zA-Z0-9 ]{3,50}$");
+    private static final Pattern CUSTOMER_NAME = Pattern.compile("^[a-zA-Z ]+$");
+    private static final Pattern PHONE = Pattern.compile("^0[1-9]{1,1}[0-9]{8,8}$");
+    private static final Pattern DATE = Pattern.compile("^(0[1-9]|[12][0-9]|3[01])[- /.](0[1-9]|1[012])[- /.](19|20)[0-9]{2,2}$");
+    private static final String ALPHABET = "fF0123456789aZz /-.\u00e9_\t";
+
+    /**
+     * The date check the date rule replaces: the pattern, then the length of
+     * the month.
+     */
+    private static boolean oldIsDate(String date) {
+        if (!DATE.matcher(date).matches()) {
+            return false;
+        }
+        String[] split = date.split("[-/. ]");
+        int day = Integer.parseInt(split[0]);
+        int month = Integer.parseInt(split[1]);
+        int year = Integer.parseInt(split[2]);
+        int maxDay = 30;
+        if (month == 1 || month == 3 || month == 5 || month == 7 || month == 8 || month == 10 || month == 12) {
+            maxDay = 31;
+        }
+        if (month == 2) {
+            maxDay = year % 400 == 0 || (year % 4 == 0 && year % 100 != 0) ? 29 : 28;
+        }
+        return day <= maxDay;
+    }
+
+    private static String random(Random random, String alphabet, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testRulesMatchTheRegularExpressions() {
+        Random random = new Random(24);
+        for (int i = 0; i < 200000; i++) {
+            String s = random(random, ALPHABET, i % 2 == 0 ? 6 : 55);
+            assertEquals(s, FLOWER_ID.matcher(s).matches(), Validator.isFlowerId(s));
+            assertEquals(s, FLOWER_NAME.matcher(s).matches(), Validator.isFlowerName(s));
+            assertEquals(s, CUSTOMER_NAME.matcher(s).matches(), Validator.isCustomerName(s));
+        }
+        for (int i = 0; i < 200000; i++) {
+            String s = random(random, "0123456789", 11);
+            assertEquals(s, PHONE.matcher(s).matches(), Validator.isPhone(s));
+        }
+    }
+
+    @Test
+    public void testDatesMatchTheOldCheck() {
+        Random random = new Random(19);
+        String digits = "0123456789";
+        String separators = "/-. x";
+        for (int i = 0; i < 200000; i++) {
+            StringBuilder sb = new StringBuilder();
+            sb.append(random.nextInt(4)).append(digits.charAt(random.nextInt(10)));
+            sb.append(separators.charAt(random.nextInt(separators.length())));
+            sb.append(random.nextInt(2)).append(digits.charAt(random.nextInt(10)));
+            sb.append(separators.charAt(random.nextInt(separators.length())));
+            sb.append(18 + random.nextInt(4)).append(digits.charAt(random.nextInt(10))).append(digits.charAt(random.nextInt(10)));
+            String s = sb.toString();
+            assertEquals(s, oldIsDate(s), Validator.isDate(s));
+        }
+        for (int i = 0; i < 20000; i++) {
+            String s = random(random, "0123456789/-. ", 11);
+            assertEquals(s, oldIsDate(s), Validator.isDate(s));
+        }
+    }
+
+    @Test
+    public void testParseDate() {
+        assertEquals(LocalDate.of(2024, 2, 29), Validator.parseDate("29/02/2024"));
+        assertEquals(LocalDate.of(1999, 12, 31), Validator.parseDate("31-12-1999"));
+        assertNull(Validator.parseDate("29/02/2023"));
+        assertNull(Validator.parseDate("29/02/1900"));
+        assertEquals(LocalDate.of(2000, 2, 29), Validator.parseDate("29.02.2000"));
+        assertNull(Validator.parseDate("01/01/2100"));
+        assertNull(Validator.parseDate(null));
+        assertEquals(Days.NONE, Validator.parseDay("1/1/2024"));
+    }
+
+    @Test
+    public void testPatternsAreCompiledOnce() {
+        assertSame(Validator.pattern("^[a-z]+$"), Validator.pattern("^[a-z]+$"));
+    }
+}